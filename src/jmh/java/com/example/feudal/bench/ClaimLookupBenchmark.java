@@ -0,0 +1,89 @@
+package com.example.feudal.bench;
+
+import com.example.feudal.town.ClaimIndex;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunk -> town lookups, half hits and half wilderness misses.
+ *
+ *  - claimIndex:     ClaimIndex.get(int, long), what the event handlers use
+ *  - byDimensionName: TownManager.getTownByClaim(String, x, z), what the commands use
+ *  - claimPosHash*:   ClaimPos.hashCode alone and inside a HashSet of every claim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ClaimLookupBenchmark {
+
+    private static final int MASK = SyntheticWorld.QUERY_COUNT - 1;
+
+    @Param({"1000", "10000"})
+    public int towns;
+
+    @Param({"100000", "1000000"})
+    public int claims;
+
+    private SyntheticWorld world;
+    private ClaimPos[] positions;
+    private Set<ClaimPos> allClaims;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = SyntheticWorld.generate(towns, claims);
+        TownManager.setTownMap(world.towns);
+
+        positions = new ClaimPos[SyntheticWorld.QUERY_COUNT];
+        for (int q = 0; q < positions.length; q++) {
+            positions[q] = new ClaimPos(world.queryDimensions[q], world.queryKeys[q]);
+        }
+
+        allClaims = new HashSet<>();
+        for (Town town : world.townArray) {
+            allClaims.addAll(town.getClaims());
+        }
+    }
+
+    @Benchmark
+    public Town claimIndex() {
+        int q = cursor++ & MASK;
+        return ClaimIndex.get(world.queryDimensions[q], world.queryKeys[q]);
+    }
+
+    @Benchmark
+    public Town byDimensionName() {
+        int q = cursor++ & MASK;
+        return TownManager.getTownByClaim(world.queryDimensionNames[q], world.queryChunkX[q], world.queryChunkZ[q]);
+    }
+
+    @Benchmark
+    public int claimPosHashCode() {
+        return positions[cursor++ & MASK].hashCode();
+    }
+
+    @Benchmark
+    public boolean claimPosHashSetContains() {
+        return allClaims.contains(positions[cursor++ & MASK]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.feudal.bench;
+
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim + unclaim of a free chunk next to a town, so the world stays the same size.
+ * Covers the ClaimSet update, the ClaimIndex update and dirty marking.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ClaimMutationBenchmark {
+
+    @Param({"1000", "10000"})
+    public int towns;
+
+    @Param({"100000", "1000000"})
+    public int claims;
+
+    private SyntheticWorld world;
+    private long[] freeKeys;
+    private int[] dimensions;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = SyntheticWorld.generate(towns, claims);
+        TownManager.setTownMap(world.towns);
+
+        freeKeys = new long[towns];
+        dimensions = new int[towns];
+        for (int i = 0; i < towns; i++) {
+            freeKeys[i] = world.freeChunkNextTo(i);
+            dimensions[i] = world.dimensionOf(i);
+        }
+    }
+
+    @Benchmark
+    public Town claimThenUnclaim() {
+        int i = next();
+        Town town = world.townArray[i];
+        town.addClaim(dimensions[i], freeKeys[i]);
+        town.removeClaim(dimensions[i], freeKeys[i]);
+        return town;
+    }
+
+    @Benchmark
+    public Town claimThenUnclaimViaClaimPos() {
+        int i = next();
+        Town town = world.townArray[i];
+        ClaimPos pos = new ClaimPos(dimensions[i], freeKeys[i]);
+        town.addClaim(pos);
+        town.removeClaim(pos);
+        return town;
+    }
+
+    private int next() {
+        int i = cursor++;
+        if (cursor == towns) cursor = 0;
+        return i;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.feudal.bench;
+
+import com.example.feudal.town.StorageMode;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownPlayerData;
+import com.example.feudal.town.TownStorage;
+import com.example.feudal.town.TownStorageBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Save/load round trips of the file-based storage backends in a temp directory.
+ * WORLD storage needs a running server and is not covered here.
+ *
+ *  - fullSave:        every record dirty (first save after a migration)
+ *  - incrementalSave: 1% of towns dirty (a typical autosave)
+ *  - load:            fresh backend reading everything back (server start)
+ *
+ * Snapshot and write both run on the benchmark thread, so the time is the sum of the
+ * server-thread and writer-thread halves.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    @Param({"JSON", "SHARDED_JSON", "BINARY"})
+    public StorageMode mode;
+
+    // towns:claims
+    @Param({"1000:100000", "10000:1000000"})
+    public String size;
+
+    private SyntheticWorld world;
+    private Path dir;
+    private TownStorageBackend backend;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String[] parts = size.split(":");
+        world = SyntheticWorld.generate(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        dir = Files.createTempDirectory("feudalism-bench");
+        backend = TownStorage.createBackend(mode, dir);
+        backend.snapshot(world.towns, world.players).write(); // nothing cached yet, so writes all
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fullSave() throws IOException {
+        world.towns.values().forEach(Town::markDirty);
+        world.players.values().forEach(TownPlayerData::markDirty);
+        backend.snapshot(world.towns, world.players).write();
+    }
+
+    @Benchmark
+    public void incrementalSave() throws IOException {
+        Town[] towns = world.townArray;
+        int count = Math.max(1, towns.length / 100);
+        for (int i = 0; i < count; i++) {
+            towns[cursor].markDirty();
+            cursor = (cursor + 1) % towns.length;
+        }
+        backend.snapshot(world.towns, world.players).write();
+    }
+
+    @Benchmark
+    public Map<UUID, Town> load() throws IOException {
+        Map<UUID, Town> towns = new HashMap<>();
+        Map<UUID, TownPlayerData> players = new HashMap<>();
+        TownStorage.createBackend(mode, dir).load(towns, players);
+        return towns;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.feudal.bench;
+
+import com.example.feudal.town.ClaimDimensions;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownPlayerData;
+import com.example.feudal.town.TownRank;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic fake server data for the benchmarks.
+ *
+ * Every town owns a solid square of claims (like real towns grow) placed on a grid so
+ * towns never overlap. 90% of towns live in the overworld, the rest in the nether/end.
+ * Each town has CITIZENS_PER_TOWN members with player records.
+ */
+final class SyntheticWorld {
+
+    static final int CITIZENS_PER_TOWN = 10;
+    static final int QUERY_COUNT = 1 << 16; // power of two, benchmarks mask the cursor
+
+    final Map<UUID, Town> towns = new HashMap<>();
+    final Map<UUID, TownPlayerData> players = new HashMap<>();
+    final Town[] townArray;
+
+    // Lookup mix: even slots hit a claim, odd slots are (almost always) wilderness
+    final int[] queryDimensions = new int[QUERY_COUNT];
+    final long[] queryKeys = new long[QUERY_COUNT];
+    final String[] queryDimensionNames = new String[QUERY_COUNT];
+    final int[] queryChunkX = new int[QUERY_COUNT];
+    final int[] queryChunkZ = new int[QUERY_COUNT];
+
+    private final int[] dimensions;
+    private final int side;
+    private final int spacing;
+    private final int columns;
+
+    private SyntheticWorld(int townCount, int claimCount, long seed) {
+        Random random = new Random(seed);
+        dimensions = new int[]{
+                ClaimDimensions.intern("minecraft:overworld"),
+                ClaimDimensions.intern("minecraft:the_nether"),
+                ClaimDimensions.intern("minecraft:the_end")
+        };
+
+        int perTown = Math.max(1, claimCount / townCount);
+        side = (int) Math.ceil(Math.sqrt(perTown));
+        spacing = side + 2;
+        columns = (int) Math.ceil(Math.sqrt(townCount));
+        townArray = new Town[townCount];
+
+        for (int i = 0; i < townCount; i++) {
+            Town town = new Town(new UUID(random.nextLong(), random.nextLong()), "Town" + i,
+                    new UUID(random.nextLong(), random.nextLong()));
+            for (int c = 1; c < CITIZENS_PER_TOWN; c++) {
+                town.getCitizens().add(new UUID(random.nextLong(), random.nextLong()));
+            }
+
+            int dimensionId = dimensions[dimensionIndex(i)];
+            for (int c = 0; c < perTown; c++) {
+                town.addClaim(dimensionId, ClaimPos.chunkKey(originX(i) + c % side, originZ(i) + c / side));
+            }
+            town.setMotd("Welcome to town " + i);
+            town.clearDirty();
+
+            for (UUID citizen : town.getCitizens()) {
+                TownPlayerData data = new TownPlayerData();
+                data.setTownId(town.getId());
+                data.setRank(citizen.equals(town.getLeader()) ? TownRank.LEADER : TownRank.CITIZEN);
+                data.clearDirty();
+                players.put(citizen, data);
+            }
+
+            towns.put(town.getId(), town);
+            townArray[i] = town;
+        }
+
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            int dimension;
+            int x;
+            int z;
+            if ((q & 1) == 0) {
+                int i = random.nextInt(townCount);
+                dimension = dimensions[dimensionIndex(i)];
+                x = originX(i) + random.nextInt(side);
+                z = originZ(i) + random.nextInt(side);
+            } else {
+                dimension = dimensions[random.nextInt(3)];
+                x = random.nextInt(1_800_000) - 900_000;
+                z = random.nextInt(1_800_000) - 900_000;
+            }
+            queryDimensions[q] = dimension;
+            queryKeys[q] = ClaimPos.chunkKey(x, z);
+            queryDimensionNames[q] = ClaimDimensions.name(dimension);
+            queryChunkX[q] = x;
+            queryChunkZ[q] = z;
+        }
+    }
+
+    static SyntheticWorld generate(int townCount, int claimCount) {
+        return new SyntheticWorld(townCount, claimCount, 0xFEDDA1L);
+    }
+
+    private static int dimensionIndex(int town) {
+        int bucket = town % 50;
+        return bucket < 45 ? 0 : bucket < 49 ? 1 : 2;
+    }
+
+    private int originX(int town) {
+        return (town % columns) * spacing;
+    }
+
+    private int originZ(int town) {
+        return (town / columns) * spacing;
+    }
+
+    /**
+     * A chunk just outside the town's square, never claimed by anyone.
+     */
+    long freeChunkNextTo(int town) {
+        return ClaimPos.chunkKey(originX(town) + side, originZ(town));
+    }
+
+    int dimensionOf(int town) {
+        return dimensions[dimensionIndex(town)];
+    }
+}
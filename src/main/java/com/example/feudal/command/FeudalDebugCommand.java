@@ -1,5 +1,9 @@
 package com.example.feudal.commands;
 
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.manager.UpkeepScheduler;
+import com.example.feudal.town.TownStorage;
+import com.example.feudal.town.TownStorageBackend;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.context.CommandContext;
 import net.minecraft.commands.CommandSourceStack;
@@ -10,12 +14,16 @@ import org.slf4j.LoggerFactory;
 import static net.minecraft.commands.Commands.literal;
 
 /**
- * Global Feudalism debug toggle.
+ * Global Feudalism debug toggle + storage tools.
  *
  * Commands:
  *   /feudal debug on
  *   /feudal debug off
  *   /feudal debug status
+ *   /feudal storage info     (active storage layout and size on disk)
+ *   /feudal storage export   (full JSON copy to config/feudalism/export/)
+ *   /feudal upkeep           (progress of the running upkeep cycle, or when the next starts)
+ *   /feudal upkeep run       (start a cycle now)
  *
  * Only players/console with permission level 2+ can use it.
  */
@@ -34,6 +42,14 @@ public class FeudalDebugCommand {
                                 .then(literal("off").executes(FeudalDebugCommand::debugOff))
                                 .then(literal("status").executes(FeudalDebugCommand::debugStatus))
                         )
+                        .then(literal("storage")
+                                .then(literal("info").executes(FeudalDebugCommand::storageInfo))
+                                .then(literal("export").executes(FeudalDebugCommand::storageExport))
+                        )
+                        .then(literal("upkeep")
+                                .executes(FeudalDebugCommand::upkeepStatus)
+                                .then(literal("run").executes(FeudalDebugCommand::upkeepRun))
+                        )
         );
     }
 
@@ -66,4 +82,67 @@ public class FeudalDebugCommand {
                         + (DEBUG_ENABLED ? "ON" : "OFF")), false);
         return 1;
     }
+
+    private static int storageInfo(CommandContext<CommandSourceStack> ctx) {
+        TownStorageBackend backend = TownStorage.getBackend();
+        if (backend == null) {
+            ctx.getSource().sendFailure(Component.literal("Feudalism storage is not loaded yet."));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() -> Component.literal("Feudalism storage: " + backend.describe()
+                + ", " + (backend.sizeOnDisk() / 1024) + " KiB on disk"), false);
+        return 1;
+    }
+
+    private static int upkeepStatus(CommandContext<CommandSourceStack> ctx) {
+        StringBuilder out = new StringBuilder("Upkeep is " + (FeudalConfig.UPKEEP_ENABLED.get() ? "enabled" : "disabled"));
+        if (UpkeepScheduler.isRunning()) {
+            int total = UpkeepScheduler.getTotal();
+            int done = UpkeepScheduler.getPosition();
+            out.append(". Cycle ").append(UpkeepScheduler.getCycle()).append(" is running: ")
+                    .append(done).append('/').append(total).append(" towns (")
+                    .append(total == 0 ? 100 : done * 100L / total).append("%)");
+        } else {
+            long minutes = Math.max(0L, UpkeepScheduler.getNextCycleAt() - System.currentTimeMillis()) / 60_000L;
+            out.append(". Next cycle in ").append(minutes).append(" min");
+            if (UpkeepScheduler.getCycle() > 0) out.append("; last cycle ").append(UpkeepScheduler.getCycle());
+        }
+        out.append(", ").append(UpkeepScheduler.getCharged()).append(" towns charged, ")
+                .append(UpkeepScheduler.getCollected()).append(" gold collected, ")
+                .append(UpkeepScheduler.getShortTowns()).append(" towns short by ")
+                .append(UpkeepScheduler.getShortfall()).append(" gold.");
+
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    private static int upkeepRun(CommandContext<CommandSourceStack> ctx) {
+        if (!FeudalConfig.UPKEEP_ENABLED.get()) {
+            ctx.getSource().sendFailure(Component.literal("Upkeep is disabled (upkeep.UPKEEP_ENABLED)."));
+            return 0;
+        }
+        if (!UpkeepScheduler.runNow()) {
+            ctx.getSource().sendFailure(Component.literal("An upkeep cycle is already running."));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("Upkeep cycle starts on the next tick."), true);
+        return 1;
+    }
+
+    private static int storageExport(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        source.sendSuccess(() -> Component.literal("Exporting Feudalism data as JSON..."), false);
+
+        TownStorage.exportJson().whenComplete((dir, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                LOGGER.error("Feudalism JSON export failed", error);
+                source.sendFailure(Component.literal("Export failed: " + error.getMessage()));
+            } else {
+                source.sendSuccess(() -> Component.literal("Exported Feudalism data to " + dir), true);
+            }
+        }));
+        return 1;
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.feudal.commands;
+
+import com.example.feudal.town.Town;
+import com.example.feudal.town.MembershipEpoch;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.TownPlayerData;
+import com.example.feudal.town.TownPlayerManager;
+import com.example.feudal.town.TownRank;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Online players grouped for tab completion: townless players, and each town's online
+ * members per rank, every group sorted by case-folded name.
+ *
+ * Built lazily in O(online players) and reused until a player joins or leaves or
+ * MembershipEpoch moves (membership or ranks changed; claim changes do not count). A prefix query is a binary search into
+ * one group plus the entries it returns, however many players are online.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Login / logout hooks are called from ModEvents
+ */
+public final class OnlineRoster {
+
+    private static final Entry[] NONE = new Entry[0];
+    private static final int RANKS = TownRank.values().length;
+
+    private static final class Entry {
+        final String key;   // folded name
+        final String name;
+        final UUID id;
+
+        Entry(String name, UUID id) {
+            this.key = name.toLowerCase(Locale.ROOT);
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    private static final Map<UUID, String> ONLINE = new HashMap<>();
+
+    private static boolean changed = true;
+    private static int epoch;
+    private static Entry[] townless = NONE;
+    private static final Map<UUID, Entry[][]> BY_TOWN = new HashMap<>(); // town -> [rank] -> sorted
+
+    private OnlineRoster() {
+    }
+
+    public static void playerLoggedIn(ServerPlayer player) {
+        ONLINE.put(player.getUUID(), player.getGameProfile().getName());
+        changed = true;
+    }
+
+    public static void playerLoggedOut(ServerPlayer player) {
+        if (ONLINE.remove(player.getUUID()) != null) changed = true;
+    }
+
+    // ========================================================================
+    // QUERIES
+    // ========================================================================
+
+    /**
+     * Names of online players without a town, starting with the prefix.
+     */
+    static List<String> townless(String prefix, int limit) {
+        ensureBuilt();
+        List<String> out = new ArrayList<>();
+        collect(townless, prefix.toLowerCase(Locale.ROOT), null, limit, out);
+        return out;
+    }
+
+    /**
+     * Names of the town's online members with the given rank, starting with the prefix.
+     *
+     * @param except player to leave out (usually the caller), or null
+     */
+    static List<String> members(UUID town, TownRank rank, String prefix, UUID except, int limit) {
+        ensureBuilt();
+        List<String> out = new ArrayList<>();
+        Entry[][] ranks = BY_TOWN.get(town);
+        if (ranks != null) collect(ranks[rank.ordinal()], prefix.toLowerCase(Locale.ROOT), except, limit, out);
+        return out;
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static void collect(Entry[] group, String prefix, UUID except, int limit, List<String> out) {
+        int lo = 0, hi = group.length;
+        while (lo < hi) { // first entry with key >= prefix
+            int mid = (lo + hi) >>> 1;
+            if (group[mid].key.compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int i = lo; i < group.length && out.size() < limit; i++) {
+            Entry entry = group[i];
+            if (!entry.key.startsWith(prefix)) break;
+            if (!entry.id.equals(except)) out.add(entry.name);
+        }
+    }
+
+    private static void ensureBuilt() {
+        if (!changed && epoch == MembershipEpoch.current()) return;
+
+        Map<UUID, List<List<Entry>>> byTown = new HashMap<>();
+        List<Entry> loose = new ArrayList<>();
+        for (Map.Entry<UUID, String> player : ONLINE.entrySet()) {
+            Entry entry = new Entry(player.getValue(), player.getKey());
+            TownPlayerData data = TownPlayerManager.getPlayerMap().get(player.getKey());
+            Town town = data == null || !data.hasTown() ? null : TownManager.getTown(data.getTownId());
+            TownRank rank = town == null ? null : town.getRank(player.getKey());
+            if (rank == null) {
+                loose.add(entry);
+                continue;
+            }
+            List<List<Entry>> ranks = byTown.computeIfAbsent(town.getId(), id -> {
+                List<List<Entry>> groups = new ArrayList<>(RANKS);
+                for (int i = 0; i < RANKS; i++) groups.add(new ArrayList<>());
+                return groups;
+            });
+            ranks.get(rank.ordinal()).add(entry);
+        }
+
+        townless = sorted(loose);
+        BY_TOWN.clear();
+        for (Map.Entry<UUID, List<List<Entry>>> town : byTown.entrySet()) {
+            Entry[][] ranks = new Entry[RANKS][];
+            for (int i = 0; i < RANKS; i++) ranks[i] = sorted(town.getValue().get(i));
+            BY_TOWN.put(town.getKey(), ranks);
+        }
+
+        changed = false;
+        epoch = MembershipEpoch.current();
+    }
+
+    private static Entry[] sorted(List<Entry> entries) {
+        if (entries.isEmpty()) return NONE;
+        Entry[] out = entries.toArray(NONE);
+        Arrays.sort(out, Comparator.comparing((Entry e) -> e.key));
+        return out;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.feudal.commands;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.players.GameProfileCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * UUID -> player name for command output.
+ *
+ * Names come from online players first, then the server's profile cache (usercache.json),
+ * and are remembered so listing a big town does not hit the profile cache every time.
+ * Updated on login, so renamed players show their new name.
+ * Server thread only.
+ */
+public final class PlayerNameCache {
+
+    private static final Map<UUID, String> NAMES = new HashMap<>();
+
+    private PlayerNameCache() {
+    }
+
+    public static void remember(ServerPlayer player) {
+        NAMES.put(player.getUUID(), player.getGameProfile().getName());
+    }
+
+    public static String name(MinecraftServer server, UUID id) {
+        String name = NAMES.get(id);
+        if (name != null) return name;
+
+        ServerPlayer online = server.getPlayerList().getPlayer(id);
+        if (online != null) {
+            name = online.getGameProfile().getName();
+        } else {
+            GameProfileCache profiles = server.getProfileCache();
+            name = profiles == null ? null : profiles.get(id).map(GameProfile::getName).orElse(null);
+        }
+
+        if (name == null) {
+            return id.toString().substring(0, 8); // unknown, try again next time
+        }
+        NAMES.put(id, name);
+        return name;
+    }
+}
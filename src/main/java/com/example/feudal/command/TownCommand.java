@@ -1,24 +1,37 @@
 package com.example.feudal.commands;
 
 import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.manager.BankManager;
+import com.example.feudal.manager.FactionManager;
+import com.example.feudal.manager.UpkeepScheduler;
+import com.example.feudal.manager.VassalManager;
+import com.example.feudal.manager.WarManager;
+import com.example.feudal.protection.ProtectionManager;
 import com.example.feudal.town.*;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.arguments.EntityArgument;
+import net.minecraft.commands.arguments.coordinates.ColumnPosArgument;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ColumnPos;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
 import net.minecraft.world.level.ChunkPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static net.minecraft.commands.Commands.argument;
 import static net.minecraft.commands.Commands.literal;
@@ -33,6 +46,7 @@ import static net.minecraft.commands.Commands.literal;
  * - metadata (desc/motd/public)
  * - claims
  * - members list
+ * - bank (gold ingots in/out, transfers, history)
  * - chunk ownership checking
  *
  * Includes debug hooks:
@@ -87,6 +101,7 @@ public class TownCommand {
                         .then(literal("info")
                                 .executes(ctx -> townInfo(ctx, null))
                                 .then(argument("name", StringArgumentType.word())
+                                        .suggests(TownSuggestions.TOWN_NAMES)
                                         .executes(ctx -> townInfo(ctx,
                                                 StringArgumentType.getString(ctx, "name")))
                                 )
@@ -99,6 +114,7 @@ public class TownCommand {
                         // --- membership ---
                         .then(literal("join")
                                 .then(argument("name", StringArgumentType.word())
+                                        .suggests(TownSuggestions.TOWN_NAMES)
                                         .executes(TownCommand::joinTown)
                                 )
                         )
@@ -114,18 +130,21 @@ public class TownCommand {
                         // --- invites ---
                         .then(literal("invite")
                                 .then(argument("player", EntityArgument.player())
+                                        .suggests(TownSuggestions.INVITABLE_PLAYERS)
                                         .executes(TownCommand::invitePlayer)
                                 )
                         )
 
                         .then(literal("accept")
                                 .then(argument("town", StringArgumentType.word())
+                                        .suggests(TownSuggestions.INVITING_TOWNS)
                                         .executes(TownCommand::acceptInvite)
                                 )
                         )
 
                         .then(literal("deny")
                                 .then(argument("town", StringArgumentType.word())
+                                        .suggests(TownSuggestions.INVITING_TOWNS)
                                         .executes(TownCommand::denyInvite)
                                 )
                         )
@@ -133,23 +152,32 @@ public class TownCommand {
                         // --- ranks ---
                         .then(literal("promote")
                                 .then(argument("player", EntityArgument.player())
+                                        .suggests(TownSuggestions.CITIZENS)
                                         .executes(TownCommand::promote)
                                 )
                         )
 
                         .then(literal("demote")
                                 .then(argument("player", EntityArgument.player())
+                                        .suggests(TownSuggestions.OFFICERS)
                                         .executes(TownCommand::demote)
                                 )
                         )
 
                         .then(literal("setleader")
                                 .then(argument("player", EntityArgument.player())
+                                        .suggests(TownSuggestions.OTHER_MEMBERS)
                                         .executes(TownCommand::setLeader)
                                 )
                         )
 
                         // --- metadata ---
+                        .then(literal("rename")
+                                .then(argument("name", StringArgumentType.word())
+                                        .executes(TownCommand::renameTown)
+                                )
+                        )
+
                         .then(literal("desc")
                                 .then(argument("description", StringArgumentType.greedyString())
                                         .executes(TownCommand::setDescription)
@@ -171,18 +199,148 @@ public class TownCommand {
                         // --- claims ---
                         .then(literal("claim")
                                 .executes(TownCommand::claimChunk)
+                                .then(literal("radius")
+                                        .then(argument("radius", IntegerArgumentType.integer(0, 32))
+                                                .executes(TownCommand::claimRadius)
+                                        )
+                                )
+                                .then(literal("rect")
+                                        .then(argument("from", ColumnPosArgument.columnPos())
+                                                .then(argument("to", ColumnPosArgument.columnPos())
+                                                        .executes(TownCommand::claimRect)
+                                                )
+                                        )
+                                )
+                                .then(literal("fill")
+                                        .executes(TownCommand::claimFill)
+                                )
                         )
 
                         .then(literal("unclaim")
                                 .executes(TownCommand::unclaimChunk)
+                                .then(literal("all")
+                                        .executes(TownCommand::unclaimAll)
+                                )
+                        )
+
+                        // --- hierarchy ---
+                        .then(literal("liege")
+                                .executes(TownCommand::liegeInfo)
+                                .then(literal("swear")
+                                        .then(argument("town", StringArgumentType.word())
+                                                .suggests(TownSuggestions.TOWN_NAMES)
+                                                .executes(TownCommand::swearFealty)
+                                        )
+                                )
+                                .then(literal("renounce")
+                                        .executes(TownCommand::renounceLiege)
+                                )
+                        )
+
+                        .then(literal("vassal")
+                                .then(literal("release")
+                                        .then(argument("town", StringArgumentType.word())
+                                                .suggests(TownSuggestions.TOWN_NAMES)
+                                                .executes(TownCommand::releaseVassal)
+                                        )
+                                )
+                        )
+
+                        // --- factions ---
+                        .then(literal("faction")
+                                .executes(ctx -> factionInfo(ctx, null))
+                                .then(literal("info")
+                                        .then(argument("name", StringArgumentType.word())
+                                                .suggests(TownSuggestions.FACTION_NAMES)
+                                                .executes(ctx -> factionInfo(ctx,
+                                                        StringArgumentType.getString(ctx, "name")))
+                                        )
+                                )
+                                .then(literal("create")
+                                        .then(argument("name", StringArgumentType.word())
+                                                .executes(TownCommand::createFaction)
+                                        )
+                                )
+                                .then(literal("invite")
+                                        .then(argument("town", StringArgumentType.word())
+                                                .suggests(TownSuggestions.TOWN_NAMES)
+                                                .executes(TownCommand::inviteToFaction)
+                                        )
+                                )
+                                .then(literal("join")
+                                        .then(argument("name", StringArgumentType.word())
+                                                .suggests(TownSuggestions.INVITING_FACTIONS)
+                                                .executes(TownCommand::joinFaction)
+                                        )
+                                )
+                                .then(literal("leave")
+                                        .executes(TownCommand::leaveFaction)
+                                )
+                                .then(literal("top")
+                                        .executes(ctx -> factionTop(ctx, FactionManager.Stat.MEMBERS))
+                                        .then(literal("towns")
+                                                .executes(ctx -> factionTop(ctx, FactionManager.Stat.TOWNS)))
+                                        .then(literal("members")
+                                                .executes(ctx -> factionTop(ctx, FactionManager.Stat.MEMBERS)))
+                                        .then(literal("claims")
+                                                .executes(ctx -> factionTop(ctx, FactionManager.Stat.CLAIMS)))
+                                        .then(literal("bank")
+                                                .executes(ctx -> factionTop(ctx, FactionManager.Stat.BANK)))
+                                )
+                        )
+
+                        // --- bank ---
+                        .then(literal("bank")
+                                .executes(TownCommand::bankBalance)
+                                .then(literal("deposit")
+                                        .then(argument("amount", IntegerArgumentType.integer(1))
+                                                .executes(TownCommand::bankDeposit)
+                                        )
+                                )
+                                .then(literal("withdraw")
+                                        .then(argument("amount", IntegerArgumentType.integer(1, MAX_WITHDRAW))
+                                                .executes(TownCommand::bankWithdraw)
+                                        )
+                                )
+                                .then(literal("transfer")
+                                        .then(argument("town", StringArgumentType.word())
+                                                .suggests(TownSuggestions.TOWN_NAMES)
+                                                .then(argument("amount", IntegerArgumentType.integer(1))
+                                                        .executes(TownCommand::bankTransfer)
+                                                )
+                                        )
+                                )
+                                .then(literal("history")
+                                        .executes(ctx -> bankHistory(ctx, 1))
+                                        .then(argument("page", IntegerArgumentType.integer(1))
+                                                .executes(ctx -> bankHistory(ctx, IntegerArgumentType.getInteger(ctx, "page")))
+                                        )
+                                )
+                        )
+
+                        // --- war ---
+                        .then(literal("war")
+                                .executes(TownCommand::warStatus)
+                                .then(literal("declare")
+                                        .then(argument("town", StringArgumentType.word())
+                                                .suggests(TownSuggestions.TOWN_NAMES)
+                                                .executes(TownCommand::declareWar)
+                                        )
+                                )
                         )
 
                         .then(literal("claims")
-                                .executes(TownCommand::listClaims)
+                                .executes(ctx -> listClaims(ctx, 1))
+                                .then(argument("page", IntegerArgumentType.integer(1))
+                                        .executes(ctx -> listClaims(ctx, IntegerArgumentType.getInteger(ctx, "page")))
+                                )
                         )
 
                         .then(literal("members")
-                                .executes(TownCommand::listMembers)
+                                .executes(ctx -> listMembers(ctx, 1))
+                                .then(argument("page", IntegerArgumentType.integer(1))
+                                        .executes(ctx -> listMembers(ctx, IntegerArgumentType.getInteger(ctx, "page")))
+                                )
                         )
         );
     }
@@ -208,8 +366,7 @@ public class TownCommand {
     private static boolean ensureLeader(CommandContext<CommandSourceStack> ctx,
                                         ServerPlayer player,
                                         Town town) {
-        TownPlayerData d = TownPlayerManager.get(player.getUUID());
-        if (d.getRank() != TownRank.LEADER) {
+        if (town.getRank(player.getUUID()) != TownRank.LEADER) {
             ctx.getSource().sendFailure(Component.literal("Only the town leader may do this."));
             return false;
         }
@@ -217,9 +374,9 @@ public class TownCommand {
     }
 
     private static boolean ensureCanManageClaims(CommandContext<CommandSourceStack> ctx,
-                                                 ServerPlayer player) {
-        TownPlayerData d = TownPlayerManager.get(player.getUUID());
-        if (!d.getRank().canManageClaims()) {
+                                                 ServerPlayer player,
+                                                 Town town) {
+        if (!town.canManageClaims(player.getUUID())) {
             ctx.getSource().sendFailure(Component.literal("Only leaders/officers may manage claims."));
             return false;
         }
@@ -248,7 +405,7 @@ public class TownCommand {
             return 0;
         }
 
-        if (TownManager.getTownByName(name) != null) {
+        if (TownManager.isNameTaken(name)) {
             out.sendFailure(Component.literal("A town with that name already exists."));
             debug(ctx, "Town name already taken: " + name);
             return 0;
@@ -310,8 +467,11 @@ public class TownCommand {
             out.sendSuccess(() -> Component.literal("=== Town: " + town.getName() + " ==="), false);
             out.sendSuccess(() -> Component.literal("Leader: " + town.getLeader()), false);
             out.sendSuccess(() -> Component.literal("Members: " + citizens.size()), false);
+            int areas = town.getClaimAreaCount();
             out.sendSuccess(() -> Component.literal("Claims: "
-                    + claims.size() + " / " + TownManager.getClaimLimit(town)), false);
+                    + claims.size() + " / " + TownManager.getClaimLimit(town)
+                    + (areas > 1 ? " (" + areas + " separate areas)" : "")), false);
+            out.sendSuccess(() -> Component.literal("Bank: " + town.getBankGold() + " gold"), false);
             out.sendSuccess(() -> Component.literal("Join type: "
                     + (town.isPublicJoin() ? "Public" : "Invite-Only")), false);
 
@@ -397,9 +557,7 @@ public class TownCommand {
             return 0;
         }
 
-        d.setTownId(town.getId());
-        d.setRank(TownRank.CITIZEN);
-        town.addCitizen(player.getUUID());
+        TownManager.addMember(town, player.getUUID());
 
         TownInviteManager.removeInvite(town.getId(), player.getUUID());
         out.sendSuccess(() -> Component.literal("Joined town '" + town.getName() + "'."), true);
@@ -430,15 +588,13 @@ public class TownCommand {
             return 1;
         }
 
-        if (d.getRank() == TownRank.LEADER && town.getCitizens().size() > 1) {
+        if (town.getRank(player.getUUID()) == TownRank.LEADER && town.getCitizens().size() > 1) {
             out.sendFailure(Component.literal(
                     "You are the leader. Transfer leadership before leaving."));
             return 0;
         }
 
-        town.removeCitizen(player.getUUID());
-        d.setTownId(null);
-        d.setRank(TownRank.CITIZEN);
+        TownManager.removeMember(town, player.getUUID());
 
         out.sendSuccess(() -> Component.literal(
                 "You left the town '" + town.getName() + "'."), true);
@@ -464,7 +620,11 @@ public class TownCommand {
         }
 
         TownInviteManager.clearInvitesForTown(town.getId());
-        TownManager.getTownMap().remove(town.getId());
+        VassalManager.townRemoved(town.getId());
+        BankManager.townRemoved(town);
+        FactionManager.townRemoved(town);
+        TownManager.removeTown(town.getId());
+        TownListings.forget(town.getId());
 
         debug(ctx, "Town disbanded: " + town.getName());
 
@@ -496,14 +656,21 @@ public class TownCommand {
             return 0;
         }
 
-        TownInviteManager.invitePlayer(town.getId(), target.getUUID());
+        TownInviteManager.Result result = TownInviteManager.invitePlayer(town.getId(), target.getUUID());
+        if (result == TownInviteManager.Result.TOWN_LIMIT_REACHED) {
+            ctx.getSource().sendFailure(Component.literal("Your town already has "
+                    + FeudalConfig.MAX_INVITES_PER_TOWN.get() + " pending invites. Wait for some to be answered or expire."));
+            return 0;
+        }
 
+        String expiry = formatDuration(FeudalConfig.INVITE_TTL_SECONDS.get());
         ctx.getSource().sendSuccess(() ->
-                Component.literal("Invited " + target.getGameProfile().getName()), false);
+                Component.literal((result == TownInviteManager.Result.REFRESHED ? "Renewed invite for " : "Invited ")
+                        + target.getGameProfile().getName() + " (expires in " + expiry + ")"), false);
 
         target.sendSystemMessage(Component.literal(
                 "You were invited to join town '" + town.getName()
-                        + "'. Use /town accept " + town.getName()));
+                        + "'. Use /town accept " + town.getName() + " within " + expiry));
 
         return 1;
     }
@@ -527,7 +694,7 @@ public class TownCommand {
         }
 
         if (!TownInviteManager.hasInvite(town.getId(), player.getUUID())) {
-            out.sendFailure(Component.literal("You do not have an invite from that town."));
+            out.sendFailure(Component.literal("You do not have an invite from that town (it may have expired)."));
             return 0;
         }
 
@@ -537,9 +704,7 @@ public class TownCommand {
             return 0;
         }
 
-        d.setTownId(town.getId());
-        d.setRank(TownRank.CITIZEN);
-        town.addCitizen(player.getUUID());
+        TownManager.addMember(town, player.getUUID());
 
         TownInviteManager.removeInvite(town.getId(), player.getUUID());
 
@@ -574,6 +739,581 @@ public class TownCommand {
         return 1;
     }
 
+    // "90 seconds" -> "1m 30s"
+    private static String formatDuration(int seconds) {
+        if (seconds < 60) return seconds + "s";
+        return (seconds / 60) + "m" + (seconds % 60 == 0 ? "" : " " + (seconds % 60) + "s");
+    }
+
+    // =========================================================================
+    // Hierarchy
+    // =========================================================================
+
+    private static int liegeInfo(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "liegeInfo() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        StringBuilder out = new StringBuilder("=== Realm of " + town.getName() + " ===");
+        if (town.getLiege() == null) {
+            out.append("\nLiege: none (independent)");
+        } else {
+            // nearest liege first, up to the top
+            StringBuilder chain = new StringBuilder();
+            for (UUID id = town.getLiege(); id != null; ) {
+                Town lord = TownManager.getTown(id);
+                if (lord == null) break;
+                if (chain.length() > 0) chain.append(" -> ");
+                chain.append(lord.getName());
+                id = lord.getLiege();
+            }
+            out.append("\nLiege: ").append(chain);
+        }
+
+        List<UUID> vassals = VassalManager.getVassals(town.getId());
+        out.append("\nDirect vassals: ").append(vassals.size());
+        for (UUID id : vassals) {
+            Town vassal = TownManager.getTown(id);
+            if (vassal != null) out.append("\n - ").append(vassal.getName());
+        }
+        int all = VassalManager.getAllVassals(town.getId()).size();
+        if (all > vassals.size()) out.append("\nAll towns below yours: ").append(all);
+
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    private static int swearFealty(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "swearFealty() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Town lord = TownManager.getTownByName(StringArgumentType.getString(ctx, "town"));
+        if (lord == null) {
+            ctx.getSource().sendFailure(Component.literal("No such town exists."));
+            return 0;
+        }
+
+        String failure = switch (VassalManager.addVassal(lord, town)) {
+            case SWORN -> null;
+            case NO_SUCH_TOWN -> "No such town exists.";
+            case SAME_TOWN -> "Your town cannot be its own liege.";
+            case ALREADY_VASSAL -> "Your town already has a liege. Renounce it first.";
+            case WOULD_CYCLE -> lord.getName() + " is below your town in the hierarchy.";
+            case TOO_DEEP -> "The hierarchy would be deeper than "
+                    + FeudalConfig.MAX_VASSAL_DEPTH.get() + " levels.";
+        };
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() ->
+                Component.literal(town.getName() + " is now a vassal of " + lord.getName() + "."), true);
+        return 1;
+    }
+
+    private static int renounceLiege(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "renounceLiege() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Town lord = town.getLiege() == null ? null : TownManager.getTown(town.getLiege());
+        if (!VassalManager.release(town)) {
+            ctx.getSource().sendFailure(Component.literal("Your town has no liege."));
+            return 0;
+        }
+
+        String from = lord == null ? "its liege" : lord.getName();
+        ctx.getSource().sendSuccess(() ->
+                Component.literal(town.getName() + " renounced " + from + " and is independent."), true);
+        return 1;
+    }
+
+    private static int releaseVassal(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "releaseVassal() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Town vassal = TownManager.getTownByName(StringArgumentType.getString(ctx, "town"));
+        if (vassal == null || !town.getId().equals(vassal.getLiege())) {
+            ctx.getSource().sendFailure(Component.literal("That town is not a direct vassal of yours."));
+            return 0;
+        }
+
+        VassalManager.release(vassal);
+        ctx.getSource().sendSuccess(() ->
+                Component.literal(vassal.getName() + " was released and is independent."), true);
+        return 1;
+    }
+
+    // =========================================================================
+    // Factions
+    // =========================================================================
+
+    private static int factionInfo(CommandContext<CommandSourceStack> ctx, String name)
+            throws CommandSyntaxException {
+
+        debug(ctx, "factionInfo() called with name=" + name);
+
+        Faction faction;
+        if (name == null) {
+            ServerPlayer p = getPlayer(ctx);
+            Town town = getPlayerTownOrError(ctx, p);
+            if (town == null) return 0;
+            faction = town.getFaction();
+            if (faction == null) {
+                ctx.getSource().sendFailure(Component.literal("Your town is not in a faction."));
+                return 0;
+            }
+        } else {
+            faction = FactionManager.getFaction(name);
+            if (faction == null) {
+                ctx.getSource().sendFailure(Component.literal("No such faction exists."));
+                return 0;
+            }
+        }
+
+        Town leader = TownManager.getTown(faction.getLeaderTown());
+        StringBuilder out = new StringBuilder("=== Faction " + faction.getName() + " ===");
+        out.append("\nLeading town: ").append(leader == null ? "?" : leader.getName());
+        out.append("\nTowns (").append(faction.getTowns().size()).append("):");
+        for (UUID id : faction.getTowns()) {
+            Town town = TownManager.getTown(id);
+            if (town != null) out.append("\n - ").append(town.getName());
+        }
+        out.append("\nMembers: ").append(faction.getMemberCount());
+        out.append("\nClaims: ").append(faction.getClaimCount());
+        out.append("\nBank: ").append(faction.getBankGold());
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    private static int createFaction(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "createFaction() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        String name = StringArgumentType.getString(ctx, "name");
+        String failure = switch (FactionManager.createFaction(name, town)) {
+            case OK -> null;
+            case NAME_TAKEN -> "A faction with that name already exists.";
+            case ALREADY_IN_FACTION -> "Your town is already in a faction. Leave it first.";
+            case NO_SUCH_FACTION, NOT_INVITED -> "Could not create the faction.";
+        };
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() ->
+                Component.literal("Faction '" + name + "' founded by " + town.getName() + "."), true);
+        return 1;
+    }
+
+    private static int inviteToFaction(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "inviteToFaction() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Faction faction = town.getFaction();
+        if (faction == null || !town.getId().equals(faction.getLeaderTown())) {
+            ctx.getSource().sendFailure(Component.literal("Only the leading town of a faction can invite."));
+            return 0;
+        }
+
+        Town target = TownManager.getTownByName(StringArgumentType.getString(ctx, "town"));
+        if (target == null) {
+            ctx.getSource().sendFailure(Component.literal("No such town exists."));
+            return 0;
+        }
+        if (target.getFaction() != null) {
+            ctx.getSource().sendFailure(Component.literal(target.getName() + " is already in a faction."));
+            return 0;
+        }
+        if (!FactionManager.invite(faction, target)) {
+            ctx.getSource().sendFailure(Component.literal(target.getName() + " was already invited."));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() ->
+                Component.literal("Invited " + target.getName() + " to " + faction.getName() + "."), true);
+        return 1;
+    }
+
+    private static int joinFaction(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "joinFaction() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        String name = StringArgumentType.getString(ctx, "name");
+        String failure = switch (FactionManager.join(town, name)) {
+            case OK -> null;
+            case NAME_TAKEN -> "Could not join the faction.";
+            case ALREADY_IN_FACTION -> "Your town is already in a faction. Leave it first.";
+            case NO_SUCH_FACTION -> "No such faction exists.";
+            case NOT_INVITED -> "Your town has not been invited to that faction.";
+        };
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        String joined = town.getFaction().getName();
+        ctx.getSource().sendSuccess(() ->
+                Component.literal(town.getName() + " joined the faction " + joined + "."), true);
+        return 1;
+    }
+
+    private static int leaveFaction(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "leaveFaction() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Faction faction = town.getFaction();
+        if (faction == null || !FactionManager.leave(town)) {
+            ctx.getSource().sendFailure(Component.literal("Your town is not in a faction."));
+            return 0;
+        }
+
+        String left = faction.getTowns().isEmpty()
+                ? town.getName() + " left " + faction.getName() + ", which was dissolved."
+                : town.getName() + " left the faction " + faction.getName() + ".";
+        ctx.getSource().sendSuccess(() -> Component.literal(left), true);
+        return 1;
+    }
+
+    private static int factionTop(CommandContext<CommandSourceStack> ctx, FactionManager.Stat stat) {
+
+        debug(ctx, "factionTop() called with stat=" + stat);
+
+        List<Faction> top = FactionManager.getTop(stat, 10);
+        if (top.isEmpty()) {
+            ctx.getSource().sendSuccess(() -> Component.literal("There are no factions yet."), false);
+            return 1;
+        }
+
+        StringBuilder out = new StringBuilder("=== Top factions by "
+                + stat.name().toLowerCase(Locale.ROOT) + " ===");
+        int rank = 1;
+        for (Faction faction : top) {
+            out.append('\n').append(rank++).append(". ").append(faction.getName())
+                    .append(": ").append(stat.of(faction));
+        }
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    // =========================================================================
+    // Bank
+    // =========================================================================
+
+    // A full inventory of gold ingots; more would mostly end up dropped on the ground
+    private static final int MAX_WITHDRAW = 36 * 64;
+    private static final int HISTORY_PAGE_SIZE = 10;
+
+    private static String bankFailure(BankManager.Result result, Town town) {
+        return switch (result) {
+            case OK -> null;
+            case INVALID_AMOUNT -> "The amount must be positive.";
+            case INSUFFICIENT_FUNDS -> town.getName() + " only has " + town.getBankGold() + " gold.";
+            case SAME_TOWN -> "A town cannot transfer gold to itself.";
+            case UNAVAILABLE -> "The bank is unavailable right now. Tell an admin to check the server log.";
+        };
+    }
+
+    private static void giveGold(ServerPlayer player, int amount) {
+        while (amount > 0) {
+            int count = Math.min(amount, 64);
+            ItemStack stack = new ItemStack(Items.GOLD_INGOT, count);
+            player.getInventory().add(stack);
+            if (!stack.isEmpty()) player.drop(stack, false); // inventory full
+            amount -= count;
+        }
+    }
+
+    private static int bankBalance(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "bankBalance() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        String upkeep = FeudalConfig.UPKEEP_ENABLED.get()
+                ? " (upkeep: " + UpkeepScheduler.getUpkeepDue(town) + " per cycle)"
+                : "";
+        ctx.getSource().sendSuccess(() -> Component.literal("Bank of " + town.getName() + ": "
+                + town.getBankGold() + " gold" + upkeep), false);
+        return 1;
+    }
+
+    private static int bankDeposit(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "bankDeposit() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        if (!BankManager.isAvailable()) {
+            ctx.getSource().sendFailure(Component.literal(bankFailure(BankManager.Result.UNAVAILABLE, town)));
+            return 0;
+        }
+
+        int amount = IntegerArgumentType.getInteger(ctx, "amount");
+        int carried = p.getInventory().countItem(Items.GOLD_INGOT);
+        if (carried < amount) {
+            ctx.getSource().sendFailure(Component.literal("You only carry " + carried + " gold ingots."));
+            return 0;
+        }
+
+        int taken = p.getInventory().clearOrCountMatchingItems(
+                stack -> stack.is(Items.GOLD_INGOT), amount, p.inventoryMenu.getCraftSlots());
+        String failure = bankFailure(BankManager.deposit(town, taken), town);
+        if (failure != null) {
+            giveGold(p, taken);
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() -> Component.literal("Deposited " + taken + " gold. "
+                + town.getName() + " now has " + town.getBankGold() + "."), false);
+        return 1;
+    }
+
+    private static int bankWithdraw(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "bankWithdraw() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        if (town.getRank(p.getUUID()) == TownRank.CITIZEN) {
+            ctx.getSource().sendFailure(Component.literal("Only leaders/officers may withdraw gold."));
+            return 0;
+        }
+
+        int amount = IntegerArgumentType.getInteger(ctx, "amount");
+        String failure = bankFailure(BankManager.withdraw(town, amount), town);
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        giveGold(p, amount);
+        ctx.getSource().sendSuccess(() -> Component.literal("Withdrew " + amount + " gold. "
+                + town.getName() + " now has " + town.getBankGold() + "."), true);
+        return 1;
+    }
+
+    private static int bankTransfer(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "bankTransfer() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Town target = TownManager.getTownByName(StringArgumentType.getString(ctx, "town"));
+        if (target == null) {
+            ctx.getSource().sendFailure(Component.literal("No such town exists."));
+            return 0;
+        }
+
+        int amount = IntegerArgumentType.getInteger(ctx, "amount");
+        String failure = bankFailure(BankManager.transfer(town, target, amount), town);
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() -> Component.literal("Sent " + amount + " gold to " + target.getName()
+                + ". " + town.getName() + " now has " + town.getBankGold() + "."), true);
+        return 1;
+    }
+
+    private static int bankHistory(CommandContext<CommandSourceStack> ctx, int page)
+            throws CommandSyntaxException {
+
+        debug(ctx, "bankHistory() called, page " + page);
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        int size = BankManager.getHistorySize(town);
+        if (size == 0) {
+            ctx.getSource().sendSuccess(() -> Component.literal("Your town's bank has no history yet."), false);
+            return 1;
+        }
+        int pages = (size + HISTORY_PAGE_SIZE - 1) / HISTORY_PAGE_SIZE;
+        if (page > pages) {
+            ctx.getSource().sendFailure(Component.literal("There are only " + pages + " page(s) of history."));
+            return 0;
+        }
+
+        List<BankLedger.Entry> entries;
+        try {
+            entries = BankManager.getHistory(town, (page - 1) * HISTORY_PAGE_SIZE, HISTORY_PAGE_SIZE);
+        } catch (IOException e) {
+            debugException(ctx, e);
+            ctx.getSource().sendFailure(Component.literal("Could not read the bank history. See logs for details."));
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        StringBuilder out = new StringBuilder("=== Bank of " + town.getName()
+                + " (page " + page + "/" + pages + ") ===");
+        for (BankLedger.Entry entry : entries) {
+            out.append('\n').append(formatAge(now - entry.getTime())).append(" ago: ")
+                    .append(entry.getType().name().toLowerCase(Locale.ROOT).replace('_', ' '));
+            if (entry.getCounterparty() != null) {
+                Town other = TownManager.getTown(entry.getCounterparty());
+                out.append(entry.getAmount() < 0 ? " to " : " from ")
+                        .append(other == null ? "a former town" : other.getName());
+            }
+            out.append(' ').append(entry.getAmount() > 0 ? "+" : "").append(entry.getAmount())
+                    .append(" -> ").append(entry.getBalance());
+        }
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    // 90_000 ms -> "1m", 2 days -> "2d"
+    private static String formatAge(long millis) {
+        long minutes = Math.max(0L, millis) / 60_000L;
+        if (minutes < 1) return "<1m";
+        if (minutes < 60) return minutes + "m";
+        if (minutes < 48 * 60) return (minutes / 60) + "h";
+        return (minutes / (24 * 60)) + "d";
+    }
+
+    // =========================================================================
+    // War
+    // =========================================================================
+
+    private static int declareWar(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "declareWar() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        Town enemy = TownManager.getTownByName(StringArgumentType.getString(ctx, "town"));
+        if (enemy == null) {
+            ctx.getSource().sendFailure(Component.literal("No such town exists."));
+            return 0;
+        }
+
+        String failure = switch (WarManager.declareWar(town, enemy)) {
+            case DECLARED -> null;
+            case DISABLED -> "Wars are disabled on this server.";
+            case NO_SUCH_TOWN -> "No such town exists.";
+            case SAME_TOWN -> "You cannot declare war on your own town.";
+            case SAME_REALM -> enemy.getName() + " serves the same top liege as your town.";
+            case ALREADY_AT_WAR -> "You are already at war with " + enemy.getName() + ".";
+            case TOO_MANY_WARS -> "Your town or " + enemy.getName() + " is already fighting "
+                    + FeudalConfig.MAX_WARS_PER_TOWN.get() + " wars.";
+            case NO_CLAIMS -> enemy.getName() + " has no land to fight over.";
+        };
+        if (failure != null) {
+            ctx.getSource().sendFailure(Component.literal(failure));
+            return 0;
+        }
+        return 1;
+    }
+
+    private static int warStatus(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "warStatus() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        List<WarManager.War> wars = WarManager.getWars(town.getId());
+        if (wars.isEmpty()) {
+            ctx.getSource().sendSuccess(() -> Component.literal("Your town is at peace."), false);
+            return 1;
+        }
+
+        StringBuilder out = new StringBuilder("=== Wars of " + town.getName() + " ===");
+        for (WarManager.War war : wars) {
+            boolean attacking = war.getAttacker().equals(town.getId());
+            Town enemy = TownManager.getTown(attacking ? war.getDefender() : war.getAttacker());
+            WarState state = war.getState();
+            int ours = attacking ? state.getAttackerScore() : state.getDefenderScore();
+            int theirs = attacking ? state.getDefenderScore() : state.getAttackerScore();
+
+            out.append('\n').append(attacking ? "Attacking " : "Defending against ")
+                    .append(enemy == null ? "?" : enemy.getName()).append(": ");
+            if (state.getPhase() == WarState.Phase.WARMUP) {
+                out.append("starts in ").append(formatDuration(state.getTicksLeft() / 20));
+            } else {
+                out.append(formatDuration(state.getTicksLeft() / 20)).append(" left, score ")
+                        .append(ours).append(" - ").append(theirs).append(", ")
+                        .append(state.getContested().size()).append(" contested");
+            }
+        }
+        String text = out.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
     // =========================================================================
     // Ranks
     // =========================================================================
@@ -594,18 +1334,18 @@ public class TownCommand {
             return 0;
         }
 
-        TownPlayerData d = TownPlayerManager.get(target.getUUID());
+        TownRank rank = town.getRank(target.getUUID());
 
-        if (d.getRank() == TownRank.LEADER) {
+        if (rank == TownRank.LEADER) {
             ctx.getSource().sendFailure(Component.literal("They are already the leader."));
             return 0;
         }
-        if (d.getRank() == TownRank.OFFICER) {
+        if (rank == TownRank.OFFICER) {
             ctx.getSource().sendFailure(Component.literal("Already an officer."));
             return 0;
         }
 
-        d.setRank(TownRank.OFFICER);
+        TownManager.setOfficer(town, target.getUUID(), true);
         ctx.getSource().sendSuccess(() ->
                 Component.literal("Promoted to officer."), true);
 
@@ -628,20 +1368,20 @@ public class TownCommand {
             return 0;
         }
 
-        TownPlayerData d = TownPlayerManager.get(target.getUUID());
+        TownRank rank = town.getRank(target.getUUID());
 
-        if (d.getRank() == TownRank.CITIZEN) {
+        if (rank == TownRank.CITIZEN) {
             ctx.getSource().sendFailure(Component.literal("Already a citizen."));
             return 0;
         }
 
-        if (d.getRank() == TownRank.LEADER) {
+        if (rank == TownRank.LEADER) {
             ctx.getSource().sendFailure(Component.literal(
                     "Use /town setleader to transfer leadership."));
             return 0;
         }
 
-        d.setRank(TownRank.CITIZEN);
+        TownManager.setOfficer(town, target.getUUID(), false);
 
         ctx.getSource().sendSuccess(() ->
                 Component.literal("Demoted to citizen."), true);
@@ -670,13 +1410,7 @@ public class TownCommand {
             return 0;
         }
 
-        TownPlayerData senderData = TownPlayerManager.get(sender.getUUID());
-        TownPlayerData targetData = TownPlayerManager.get(target.getUUID());
-
-        senderData.setRank(TownRank.CITIZEN);
-        targetData.setRank(TownRank.LEADER);
-
-        town.setLeader(target.getUUID());
+        TownManager.transferLeadership(town, target.getUUID());
 
         ctx.getSource().sendSuccess(() ->
                 Component.literal("Leadership transferred."), true);
@@ -687,6 +1421,31 @@ public class TownCommand {
     // Metadata
     // =========================================================================
 
+    private static int renameTown(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "renameTown() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        String oldName = town.getName();
+        String name = StringArgumentType.getString(ctx, "name");
+
+        if (!TownManager.renameTown(town, name)) {
+            ctx.getSource().sendFailure(Component.literal("A town with that name already exists."));
+            return 0;
+        }
+
+        ctx.getSource().sendSuccess(() ->
+                Component.literal("Town '" + oldName + "' is now called '" + name + "'."), true);
+
+        return 1;
+    }
+
     private static int setDescription(CommandContext<CommandSourceStack> ctx)
             throws CommandSyntaxException {
 
@@ -775,9 +1534,12 @@ public class TownCommand {
             out.sendFailure(Component.literal("You must be in a town."));
             return 0;
         }
-        if (!ensureCanManageClaims(ctx, p)) return 0;
-
         Town town = TownManager.getTown(d.getTownId());
+        if (town == null) {
+            out.sendFailure(Component.literal("Town data missing."));
+            return 0;
+        }
+        if (!ensureCanManageClaims(ctx, p, town)) return 0;
 
         ServerLevel level = (ServerLevel) p.level();
         ChunkPos pos = new ChunkPos(p.blockPosition());
@@ -799,7 +1561,15 @@ public class TownCommand {
             return 0;
         }
 
-        town.addClaim(new ClaimPos(dim, pos.x, pos.z));
+        ClaimPos claim = new ClaimPos(dim, pos.x, pos.z);
+        if (FeudalConfig.CONTIGUOUS_CLAIMS.get()
+                && town.getClaims().size(claim.getDimensionId()) > 0
+                && !town.getConnectivity(claim.getDimensionId()).isAdjacentToClaim(claim.getChunkKey())) {
+            out.sendFailure(Component.literal("Claims must border your town's existing land."));
+            return 0;
+        }
+
+        town.addClaim(claim);
         out.sendSuccess(() ->
                 Component.literal("Chunk claimed for town '" + town.getName() + "'."), true);
 
@@ -819,9 +1589,12 @@ public class TownCommand {
             out.sendFailure(Component.literal("You are not in a town."));
             return 0;
         }
-        if (!ensureCanManageClaims(ctx, p)) return 0;
-
         Town town = TownManager.getTown(d.getTownId());
+        if (town == null) {
+            out.sendFailure(Component.literal("Town data missing."));
+            return 0;
+        }
+        if (!ensureCanManageClaims(ctx, p, town)) return 0;
 
         ServerLevel level = (ServerLevel) p.level();
         ChunkPos pos = new ChunkPos(p.blockPosition());
@@ -834,6 +1607,12 @@ public class TownCommand {
             return 0;
         }
 
+        if (FeudalConfig.CONTIGUOUS_CLAIMS.get()
+                && town.getConnectivity(claim.getDimensionId()).wouldSplit(claim.getChunkKey())) {
+            out.sendFailure(Component.literal("Unclaiming this chunk would split your town in two."));
+            return 0;
+        }
+
         town.removeClaim(claim);
         out.sendSuccess(() ->
                 Component.literal("Chunk unclaimed."), true);
@@ -841,10 +1620,108 @@ public class TownCommand {
         return 1;
     }
 
-    private static int listClaims(CommandContext<CommandSourceStack> ctx)
+    // -------------------------------------------------------------------------
+    // Bulk claims: validated in one pass, applied all-or-nothing (see BulkClaims)
+    // -------------------------------------------------------------------------
+
+    private static int claimRadius(CommandContext<CommandSourceStack> ctx)
             throws CommandSyntaxException {
 
-        debug(ctx, "listClaims() called");
+        debug(ctx, "claimRadius() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getClaimManagerTown(ctx, p);
+        if (town == null) return 0;
+
+        int radius = IntegerArgumentType.getInteger(ctx, "radius");
+        ChunkPos pos = new ChunkPos(p.blockPosition());
+        return reportBulkClaim(ctx, town, BulkClaims.claimRect(town, ProtectionManager.dimensionId(p.level()),
+                pos.x - radius, pos.z - radius, pos.x + radius, pos.z + radius));
+    }
+
+    private static int claimRect(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "claimRect() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getClaimManagerTown(ctx, p);
+        if (town == null) return 0;
+
+        ColumnPos from = ColumnPosArgument.getColumnPos(ctx, "from");
+        ColumnPos to = ColumnPosArgument.getColumnPos(ctx, "to");
+        return reportBulkClaim(ctx, town, BulkClaims.claimRect(town, ProtectionManager.dimensionId(p.level()),
+                from.x() >> 4, from.z() >> 4, to.x() >> 4, to.z() >> 4));
+    }
+
+    private static int claimFill(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "claimFill() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getClaimManagerTown(ctx, p);
+        if (town == null) return 0;
+
+        ChunkPos pos = new ChunkPos(p.blockPosition());
+        return reportBulkClaim(ctx, town, BulkClaims.claimFill(town, ProtectionManager.dimensionId(p.level()), pos.x, pos.z));
+    }
+
+    private static int unclaimAll(CommandContext<CommandSourceStack> ctx)
+            throws CommandSyntaxException {
+
+        debug(ctx, "unclaimAll() called");
+
+        ServerPlayer p = getPlayer(ctx);
+        Town town = getPlayerTownOrError(ctx, p);
+        if (town == null) return 0;
+        if (!ensureLeader(ctx, p, town)) return 0;
+
+        int count = BulkClaims.unclaimAll(town);
+        if (count == 0) {
+            ctx.getSource().sendFailure(Component.literal("Your town has no claims."));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("Unclaimed all " + count + " chunks of '"
+                + town.getName() + "'."), true);
+        return count;
+    }
+
+    private static Town getClaimManagerTown(CommandContext<CommandSourceStack> ctx, ServerPlayer player) {
+        Town town = getPlayerTownOrError(ctx, player);
+        if (town == null || !ensureCanManageClaims(ctx, player, town)) return null;
+        return town;
+    }
+
+    private static int reportBulkClaim(CommandContext<CommandSourceStack> ctx, Town town, BulkClaims.Result result) {
+        CommandSourceStack out = ctx.getSource();
+        String skipped = (result.getAlreadyOwned() > 0 ? ", " + result.getAlreadyOwned() + " already yours" : "")
+                + (result.getTakenByOthers() > 0 ? ", " + result.getTakenByOthers() + " owned by other towns" : "");
+
+        switch (result.getOutcome()) {
+            case CLAIMED -> {
+                out.sendSuccess(() -> Component.literal("Claimed " + result.getClaimed() + " chunks for '"
+                        + town.getName() + "'" + skipped + ". Claims: " + town.getClaims().size()
+                        + " / " + TownManager.getClaimLimit(town)), true);
+                return result.getClaimed();
+            }
+            case NOTHING_TO_CLAIM -> out.sendFailure(Component.literal("Nothing to claim there" + skipped + "."));
+            case TOO_LARGE -> out.sendFailure(Component.literal("Too many chunks at once (max "
+                    + FeudalConfig.MAX_BULK_CLAIM_CHUNKS.get() + ")."));
+            case OVER_LIMIT -> out.sendFailure(Component.literal("That would exceed your claim limit ("
+                    + town.getClaims().size() + "/" + TownManager.getClaimLimit(town) + "). Nothing was claimed."));
+            case NOT_CONTIGUOUS -> out.sendFailure(Component.literal(
+                    "Claims must border your town's existing land. Nothing was claimed."));
+            case NOT_ENCLOSED -> out.sendFailure(Component.literal(
+                    "This area is not enclosed by your town's claims."));
+        }
+        return 0;
+    }
+
+    private static int listClaims(CommandContext<CommandSourceStack> ctx, int page)
+            throws CommandSyntaxException {
+
+        debug(ctx, "listClaims() called, page " + page);
 
         ServerPlayer p = getPlayer(ctx);
         Town town = getPlayerTownOrError(ctx, p);
@@ -858,15 +1735,14 @@ public class TownCommand {
             return 1;
         }
 
-        out.sendSuccess(() ->
-                Component.literal("Claims for town '" + town.getName() + "':"), false);
-
-        for (ClaimPos pos : town.getClaims()) {
-            out.sendSuccess(() ->
-                    Component.literal("- " + pos.getDimension()
-                            + " [" + pos.getChunkX() + ", " + pos.getChunkZ() + "]"), false);
+        int pages = TownListings.claimPages(town);
+        if (page > pages) {
+            out.sendFailure(Component.literal("There are only " + pages + " page(s) of claims."));
+            return 0;
         }
 
+        Component message = TownListings.claimsPage(town, page);
+        out.sendSuccess(() -> message, false);
         return 1;
     }
 
@@ -874,10 +1750,10 @@ public class TownCommand {
     // Members
     // =========================================================================
 
-    private static int listMembers(CommandContext<CommandSourceStack> ctx)
+    private static int listMembers(CommandContext<CommandSourceStack> ctx, int page)
             throws CommandSyntaxException {
 
-        debug(ctx, "listMembers() called");
+        debug(ctx, "listMembers() called, page " + page);
 
         ServerPlayer p = getPlayer(ctx);
         Town town = getPlayerTownOrError(ctx, p);
@@ -885,32 +1761,14 @@ public class TownCommand {
 
         CommandSourceStack out = ctx.getSource();
 
-        Set<UUID> members = town.getCitizens();
-
-        out.sendSuccess(() ->
-                Component.literal("--- Members of '" + town.getName() + "' ---"), false);
-
-        String leader = town.getLeader().toString();
-        out.sendSuccess(() ->
-                Component.literal("Leader: " + leader), false);
-
-        String officers = members.stream()
-                .filter(id -> !id.equals(town.getLeader()))
-                .filter(id -> TownPlayerManager.get(id).getRank() == TownRank.OFFICER)
-                .map(UUID::toString)
-                .collect(Collectors.joining(", "));
-
-        String citizens = members.stream()
-                .filter(id -> TownPlayerManager.get(id).getRank() == TownRank.CITIZEN)
-                .map(UUID::toString)
-                .collect(Collectors.joining(", "));
-
-        out.sendSuccess(() ->
-                Component.literal("Officers: " + (officers.isEmpty() ? "<none>" : officers)), false);
-
-        out.sendSuccess(() ->
-                Component.literal("Citizens: " + (citizens.isEmpty() ? "<none>" : citizens)), false);
+        int pages = TownListings.memberPages(town);
+        if (page > pages) {
+            out.sendFailure(Component.literal("There are only " + pages + " page(s) of members."));
+            return 0;
+        }
 
+        Component message = TownListings.membersPage(out.getServer(), town, page);
+        out.sendSuccess(() -> message, false);
         return 1;
     }
 }
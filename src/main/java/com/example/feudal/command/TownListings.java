@@ -0,0 +1,222 @@
+package com.example.feudal.commands;
+
+import com.example.feudal.town.ClaimDimensions;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.ClaimSet;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownRank;
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Paged output for /town claims and /town members.
+ *
+ * Every page is ONE chat message. The sorted claim list and the rank-grouped member list
+ * are built once per town and reused until that town's claims / members version moves,
+ * so changes in other towns never rebuild them; rendering a page only formats the rows
+ * on that page.
+ * Server thread only.
+ */
+final class TownListings {
+
+    static final int CLAIMS_PER_PAGE = 12;
+    static final int MEMBERS_PER_PAGE = 15;
+
+    private static final Map<UUID, ClaimListing> CLAIMS = new HashMap<>();
+    private static final Map<UUID, Roster> ROSTERS = new HashMap<>();
+
+    private TownListings() {
+    }
+
+    private static final class ClaimListing {
+        Town town;         // the instance built from; a reload brings new ones with fresh versions
+        int version;
+        int[] dimensions;  // ClaimDimensions id per row
+        long[] positions;  // (chunkX << 32) | (chunkZ with its sign bit flipped), sorted by x then z within a dimension
+    }
+
+    private static final class Roster {
+        Town town;
+        int version;
+        UUID[] members;    // leader, officers, citizens; each group sorted by name
+        TownRank[] ranks;
+        int officers;
+        int citizens;
+    }
+
+    static int pageCount(int rows, int perPage) {
+        return Math.max(1, (rows + perPage - 1) / perPage);
+    }
+
+    /**
+     * Drops cached listings of a disbanded town.
+     */
+    static void forget(UUID townId) {
+        CLAIMS.remove(townId);
+        ROSTERS.remove(townId);
+    }
+
+    // =========================================================================
+    // Claims
+    // =========================================================================
+
+    static int claimPages(Town town) {
+        return pageCount(town.getClaims().size(), CLAIMS_PER_PAGE);
+    }
+
+    /**
+     * @param page 1-based, must be within 1..claimPages(town)
+     */
+    static Component claimsPage(Town town, int page) {
+        ClaimListing listing = claimListing(town);
+        int rows = listing.positions.length;
+        int pages = pageCount(rows, CLAIMS_PER_PAGE);
+
+        MutableComponent out = Component.literal("Claims of '" + town.getName() + "' (" + rows + " chunks, page "
+                + page + "/" + pages + "):").withStyle(ChatFormatting.GOLD);
+
+        int end = Math.min(rows, page * CLAIMS_PER_PAGE);
+        for (int i = (page - 1) * CLAIMS_PER_PAGE; i < end; i++) {
+            long position = listing.positions[i];
+            out.append(Component.literal("\n- " + ClaimDimensions.name(listing.dimensions[i])
+                    + " [" + (int) (position >> 32) + ", " + ((int) position ^ Integer.MIN_VALUE) + "]").withStyle(ChatFormatting.WHITE));
+        }
+
+        appendNavigation(out, "/town claims ", page, pages);
+        return out;
+    }
+
+    private static ClaimListing claimListing(Town town) {
+        int version = town.getClaimsVersion();
+        ClaimListing listing = CLAIMS.get(town.getId());
+        if (listing != null && listing.town == town && listing.version == version) return listing;
+
+        ClaimSet claims = town.getClaims();
+        Integer[] dimensionIds = Arrays.stream(claims.dimensionIds()).boxed().toArray(Integer[]::new);
+        Arrays.sort(dimensionIds, Comparator.comparing(ClaimDimensions::name));
+
+        listing = new ClaimListing();
+        listing.town = town;
+        listing.version = version;
+        listing.dimensions = new int[claims.size()];
+        listing.positions = new long[claims.size()];
+
+        int row = 0;
+        for (int dimensionId : dimensionIds) {
+            long[] keys = claims.chunkKeys(dimensionId);
+            for (int i = 0; i < keys.length; i++) {
+                // Flipping z's sign bit makes the low half order like a signed int
+                keys[i] = ((long) ClaimPos.chunkX(keys[i]) << 32)
+                        | ((ClaimPos.chunkZ(keys[i]) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys);
+            Arrays.fill(listing.dimensions, row, row + keys.length, dimensionId);
+            System.arraycopy(keys, 0, listing.positions, row, keys.length);
+            row += keys.length;
+        }
+
+        CLAIMS.put(town.getId(), listing);
+        return listing;
+    }
+
+    // =========================================================================
+    // Members
+    // =========================================================================
+
+    static int memberPages(Town town) {
+        return pageCount(town.getCitizens().size(), MEMBERS_PER_PAGE);
+    }
+
+    /**
+     * @param page 1-based, must be within 1..memberPages(town)
+     */
+    static Component membersPage(MinecraftServer server, Town town, int page) {
+        Roster roster = roster(server, town);
+        int rows = roster.members.length;
+        int pages = pageCount(rows, MEMBERS_PER_PAGE);
+
+        MutableComponent out = Component.literal("Members of '" + town.getName() + "' (" + rows + " total: "
+                + roster.officers + " officers, " + roster.citizens + " citizens, page " + page + "/" + pages + "):")
+                .withStyle(ChatFormatting.GOLD);
+
+        int end = Math.min(rows, page * MEMBERS_PER_PAGE);
+        for (int i = (page - 1) * MEMBERS_PER_PAGE; i < end; i++) {
+            String name = PlayerNameCache.name(server, roster.members[i]);
+            out.append(switch (roster.ranks[i]) {
+                case LEADER -> Component.literal("\n[Leader] " + name).withStyle(ChatFormatting.YELLOW);
+                case OFFICER -> Component.literal("\n[Officer] " + name).withStyle(ChatFormatting.AQUA);
+                case CITIZEN -> Component.literal("\n" + name).withStyle(ChatFormatting.WHITE);
+            });
+        }
+
+        appendNavigation(out, "/town members ", page, pages);
+        return out;
+    }
+
+    private static Roster roster(MinecraftServer server, Town town) {
+        int version = town.getMembersVersion();
+        Roster roster = ROSTERS.get(town.getId());
+        if (roster != null && roster.town == town && roster.version == version) return roster;
+
+        // Town keeps members partitioned by rank, so no per-member lookups are needed
+        List<UUID> leader = new ArrayList<>(1);
+        if (town.getLeader() != null && town.isMember(town.getLeader())) leader.add(town.getLeader());
+        List<UUID> officers = new ArrayList<>(town.getOfficers());
+        List<UUID> citizens = new ArrayList<>(town.getPlainCitizens());
+
+        Comparator<UUID> byName = Comparator.comparing(id -> PlayerNameCache.name(server, id), String.CASE_INSENSITIVE_ORDER);
+        officers.sort(byName);
+        citizens.sort(byName);
+
+        roster = new Roster();
+        roster.town = town;
+        roster.version = version;
+        roster.officers = officers.size();
+        roster.citizens = citizens.size();
+        roster.members = new UUID[leader.size() + officers.size() + citizens.size()];
+        roster.ranks = new TownRank[roster.members.length];
+
+        int row = 0;
+        for (UUID id : leader) { roster.members[row] = id; roster.ranks[row++] = TownRank.LEADER; }
+        for (UUID id : officers) { roster.members[row] = id; roster.ranks[row++] = TownRank.OFFICER; }
+        for (UUID id : citizens) { roster.members[row] = id; roster.ranks[row++] = TownRank.CITIZEN; }
+
+        ROSTERS.put(town.getId(), roster);
+        return roster;
+    }
+
+    // =========================================================================
+    // Shared
+    // =========================================================================
+
+    private static void appendNavigation(MutableComponent out, String command, int page, int pages) {
+        if (pages <= 1) return;
+
+        out.append(Component.literal("\n"));
+        if (page > 1) {
+            out.append(link("« Prev", command + (page - 1)));
+            if (page < pages) out.append(Component.literal(" | ").withStyle(ChatFormatting.GRAY));
+        }
+        if (page < pages) {
+            out.append(link("Next »", command + (page + 1)));
+        }
+    }
+
+    private static Component link(String text, String command) {
+        return Component.literal(text).withStyle(style -> style
+                .withColor(ChatFormatting.GREEN)
+                .withUnderlined(true)
+                .withClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, command)));
+    }
+}
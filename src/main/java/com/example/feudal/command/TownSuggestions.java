@@ -0,0 +1,140 @@
+package com.example.feudal.commands;
+
+import com.example.feudal.manager.FactionManager;
+import com.example.feudal.town.Faction;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownInviteManager;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.TownPlayerData;
+import com.example.feudal.town.TownPlayerManager;
+import com.example.feudal.town.TownRank;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tab completion for /town arguments.
+ *
+ * Every provider answers from an index that is already in memory (the town name trie,
+ * OnlineRoster, the player's own invites) and returns a completed future, so a keystroke
+ * never scans all towns or all players.
+ *
+ * IMPORTANT:
+ *  - Runs on the server thread (Brigadier asks there), like the indexes it reads
+ *  - At most MAX_SUGGESTIONS entries; the client narrows the list as the player types
+ */
+final class TownSuggestions {
+
+    static final int MAX_SUGGESTIONS = 50;
+
+    private TownSuggestions() {
+    }
+
+    /**
+     * Names of all towns, by prefix (case-insensitive).
+     */
+    static final SuggestionProvider<CommandSourceStack> TOWN_NAMES = (ctx, builder) ->
+            suggest(builder, TownManager.getTownNamesStartingWith(builder.getRemaining(), MAX_SUGGESTIONS));
+
+    /**
+     * Towns with a live invite for the caller (/town accept, /town deny).
+     */
+    static final SuggestionProvider<CommandSourceStack> INVITING_TOWNS = (ctx, builder) -> {
+        ServerPlayer player = ctx.getSource().getPlayer();
+        if (player == null) return builder.buildFuture();
+
+        String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (UUID id : TownInviteManager.getInvitingTowns(player.getUUID())) {
+            Town town = TownManager.getTown(id);
+            if (town != null && town.getName().toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                builder.suggest(town.getName());
+            }
+        }
+        return builder.buildFuture();
+    };
+
+    /**
+     * Online players without a town (/town invite).
+     */
+    static final SuggestionProvider<CommandSourceStack> INVITABLE_PLAYERS = (ctx, builder) ->
+            suggest(builder, OnlineRoster.townless(builder.getRemaining(), MAX_SUGGESTIONS));
+
+    /**
+     * Online citizens of the caller's town (/town promote).
+     */
+    static final SuggestionProvider<CommandSourceStack> CITIZENS = (ctx, builder) ->
+            members(ctx.getSource(), builder, TownRank.CITIZEN);
+
+    /**
+     * Online officers of the caller's town (/town demote).
+     */
+    static final SuggestionProvider<CommandSourceStack> OFFICERS = (ctx, builder) ->
+            members(ctx.getSource(), builder, TownRank.OFFICER);
+
+    /**
+     * Online members of the caller's town other than the caller (/town setleader).
+     */
+    static final SuggestionProvider<CommandSourceStack> OTHER_MEMBERS = (ctx, builder) ->
+            members(ctx.getSource(), builder, TownRank.OFFICER, TownRank.CITIZEN);
+
+    /**
+     * Names of all factions (/town faction info). There are few enough to filter directly.
+     */
+    static final SuggestionProvider<CommandSourceStack> FACTION_NAMES = (ctx, builder) -> {
+        String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (Faction faction : FactionManager.getFactions()) {
+            if (faction.getName().toLowerCase(Locale.ROOT).startsWith(prefix)) builder.suggest(faction.getName());
+        }
+        return builder.buildFuture();
+    };
+
+    /**
+     * Factions that invited the caller's town (/town faction join).
+     */
+    static final SuggestionProvider<CommandSourceStack> INVITING_FACTIONS = (ctx, builder) -> {
+        ServerPlayer player = ctx.getSource().getPlayer();
+        TownPlayerData data = player == null ? null : TownPlayerManager.getPlayerMap().get(player.getUUID());
+        if (data == null || !data.hasTown()) return builder.buildFuture();
+
+        String prefix = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (String key : FactionManager.getInvites(data.getTownId())) {
+            Faction faction = FactionManager.getFaction(key);
+            if (faction != null && key.startsWith(prefix)) builder.suggest(faction.getName());
+        }
+        return builder.buildFuture();
+    };
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static CompletableFuture<Suggestions> members(
+            CommandSourceStack source, SuggestionsBuilder builder, TownRank... ranks) {
+        ServerPlayer player = source.getPlayer();
+        TownPlayerData data = player == null ? null : TownPlayerManager.getPlayerMap().get(player.getUUID());
+        if (data == null || !data.hasTown()) return builder.buildFuture();
+
+        int left = MAX_SUGGESTIONS;
+        for (TownRank rank : ranks) {
+            List<String> names = OnlineRoster.members(data.getTownId(), rank, builder.getRemaining(),
+                    player.getUUID(), left);
+            for (String name : names) builder.suggest(name);
+            left -= names.size();
+            if (left <= 0) break;
+        }
+        return builder.buildFuture();
+    }
+
+    private static CompletableFuture<Suggestions> suggest(
+            SuggestionsBuilder builder, List<String> names) {
+        for (String name : names) builder.suggest(name);
+        return builder.buildFuture();
+    }
+}
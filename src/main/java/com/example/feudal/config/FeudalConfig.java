@@ -1,5 +1,6 @@
 package com.example.feudal.config;
 
+import com.example.feudal.town.StorageMode;
 import net.neoforged.neoforge.common.ModConfigSpec;
 
 public class FeudalConfig {
@@ -10,9 +11,51 @@ public class FeudalConfig {
 
     public static final ModConfigSpec.IntValue BASE_CLAIMS;
     public static final ModConfigSpec.IntValue CLAIMS_PER_MEMBER;
+    public static final ModConfigSpec.BooleanValue CONTIGUOUS_CLAIMS;
+    public static final ModConfigSpec.IntValue MAX_BULK_CLAIM_CHUNKS;
     public static final ModConfigSpec.IntValue MAX_DESC_LENGTH;
     public static final ModConfigSpec.IntValue MAX_MOTD_LENGTH;
 
+    public static final ModConfigSpec.BooleanValue PROTECTION_ENABLED;
+    public static final ModConfigSpec.BooleanValue OPS_BYPASS_PROTECTION;
+    public static final ModConfigSpec.BooleanValue CITIZENS_CAN_BUILD;
+    public static final ModConfigSpec.BooleanValue PROTECT_FROM_EXPLOSIONS;
+    public static final ModConfigSpec.BooleanValue PROTECT_FROM_FLUIDS;
+
+    public static final ModConfigSpec.BooleanValue SHOW_TERRITORY_MESSAGES;
+
+    public static final ModConfigSpec.BooleanValue MAP_EXPORT_ENABLED;
+    public static final ModConfigSpec.ConfigValue<String> MAP_EXPORT_FOLDER;
+    public static final ModConfigSpec.IntValue MAP_EXPORT_INTERVAL_SECONDS;
+
+    public static final ModConfigSpec.IntValue INVITE_TTL_SECONDS;
+    public static final ModConfigSpec.IntValue MAX_INVITES_PER_TOWN;
+    public static final ModConfigSpec.IntValue MAX_INVITES_PER_PLAYER;
+
+    public static final ModConfigSpec.BooleanValue WAR_ENABLED;
+    public static final ModConfigSpec.IntValue WAR_WARMUP_SECONDS;
+    public static final ModConfigSpec.IntValue WAR_DURATION_MINUTES;
+    public static final ModConfigSpec.IntValue WAR_CAPTURE_SECONDS;
+    public static final ModConfigSpec.IntValue WAR_SCORE_TO_WIN;
+    public static final ModConfigSpec.IntValue MAX_WARS_PER_TOWN;
+    public static final ModConfigSpec.IntValue MAX_CONTESTED_CHUNKS;
+    public static final ModConfigSpec.IntValue WAR_TICK_BUDGET_MICROS;
+
+    public static final ModConfigSpec.IntValue MAX_VASSAL_DEPTH;
+
+    public static final ModConfigSpec.IntValue BANK_SNAPSHOT_RECORDS;
+
+    public static final ModConfigSpec.BooleanValue UPKEEP_ENABLED;
+    public static final ModConfigSpec.IntValue UPKEEP_INTERVAL_MINUTES;
+    public static final ModConfigSpec.IntValue UPKEEP_PER_CLAIM;
+    public static final ModConfigSpec.IntValue UPKEEP_PER_CLAIM_OVER_LIMIT;
+    public static final ModConfigSpec.IntValue UPKEEP_PER_CITIZEN;
+    public static final ModConfigSpec.IntValue UPKEEP_TOWNS_PER_TICK;
+    public static final ModConfigSpec.IntValue UPKEEP_TICK_BUDGET_MICROS;
+
+    public static final ModConfigSpec.IntValue AUTOSAVE_INTERVAL_SECONDS;
+    public static final ModConfigSpec.EnumValue<StorageMode> STORAGE_MODE;
+
     static {
         ModConfigSpec.Builder builder = new ModConfigSpec.Builder();
 
@@ -24,6 +67,11 @@ public class FeudalConfig {
         builder.push("town_claims");
         BASE_CLAIMS = builder.defineInRange("BASE_CLAIMS", 8, 1, 5000);
         CLAIMS_PER_MEMBER = builder.defineInRange("CLAIMS_PER_MEMBER", 2, 0, 5000);
+        CONTIGUOUS_CLAIMS = builder.comment("New claims must share a side with an existing claim in the same dimension",
+                        "(the first claim in a dimension is free), and unclaiming may not split a town's land in two")
+                .define("CONTIGUOUS_CLAIMS", false);
+        MAX_BULK_CLAIM_CHUNKS = builder.comment("Most chunks one /town claim radius|rect|fill may cover")
+                .defineInRange("MAX_BULK_CLAIM_CHUNKS", 1024, 1, 65536);
         builder.pop();
 
         builder.push("metadata_limits");
@@ -31,6 +79,103 @@ public class FeudalConfig {
         MAX_MOTD_LENGTH = builder.defineInRange("MAX_MOTD_LENGTH", 200, 1, 2000);
         builder.pop();
 
+        builder.push("protection");
+        PROTECTION_ENABLED = builder.comment("Stop outsiders from breaking, placing and using blocks in claimed chunks")
+                .define("PROTECTION_ENABLED", true);
+        OPS_BYPASS_PROTECTION = builder.comment("Players with permission level 2+ ignore claim protection")
+                .define("OPS_BYPASS_PROTECTION", true);
+        CITIZENS_CAN_BUILD = builder.comment("Plain citizens may build in their own town (leaders and officers always can)")
+                .define("CITIZENS_CAN_BUILD", true);
+        PROTECT_FROM_EXPLOSIONS = builder.comment("Explosions do not destroy blocks in claimed chunks")
+                .define("PROTECT_FROM_EXPLOSIONS", true);
+        PROTECT_FROM_FLUIDS = builder.comment("Fluids cannot flow into a claim from outside it")
+                .define("PROTECT_FROM_FLUIDS", true);
+        builder.pop();
+
+        builder.push("territory");
+        SHOW_TERRITORY_MESSAGES = builder.comment("Show the town name (and its MOTD) when entering a town, and 'Wilderness' when leaving one")
+                .define("SHOW_TERRITORY_MESSAGES", true);
+        builder.pop();
+
+        builder.push("map_export");
+        MAP_EXPORT_ENABLED = builder.comment("Write town borders as GeoJSON for web maps")
+                .define("MAP_EXPORT_ENABLED", false);
+        MAP_EXPORT_FOLDER = builder.comment("Output folder, relative to the server directory")
+                .define("MAP_EXPORT_FOLDER", "feudalism-map");
+        MAP_EXPORT_INTERVAL_SECONDS = builder.comment("Seconds between exports; only towns whose claims changed are re-traced")
+                .defineInRange("MAP_EXPORT_INTERVAL_SECONDS", 30, 1, 86400);
+        builder.pop();
+
+        builder.push("invites");
+        INVITE_TTL_SECONDS = builder.comment("Seconds before an unanswered town invite expires")
+                .defineInRange("INVITE_TTL_SECONDS", 300, 10, 86400);
+        MAX_INVITES_PER_TOWN = builder.comment("Pending invites a town may have out at once")
+                .defineInRange("MAX_INVITES_PER_TOWN", 20, 1, 1000);
+        MAX_INVITES_PER_PLAYER = builder.comment("Pending invites a player can hold; the oldest is dropped when a new one arrives")
+                .defineInRange("MAX_INVITES_PER_PLAYER", 5, 1, 100);
+        builder.pop();
+
+        builder.push("war");
+        WAR_ENABLED = builder.comment("Allow town leaders to declare war with /town war declare")
+                .define("WAR_ENABLED", true);
+        WAR_WARMUP_SECONDS = builder.comment("Seconds between a declaration and the start of fighting")
+                .defineInRange("WAR_WARMUP_SECONDS", 300, 0, 86400);
+        WAR_DURATION_MINUTES = builder.comment("Minutes of fighting before the side with the higher score wins")
+                .defineInRange("WAR_DURATION_MINUTES", 60, 1, 10080);
+        WAR_CAPTURE_SECONDS = builder.comment("Seconds attackers must hold a defender chunk (outnumbering defenders in it) to capture it")
+                .defineInRange("WAR_CAPTURE_SECONDS", 60, 1, 3600);
+        WAR_SCORE_TO_WIN = builder.comment("Score that ends a war early: attackers score per captured chunk,",
+                        "defenders per contested chunk they win back")
+                .defineInRange("WAR_SCORE_TO_WIN", 20, 1, 10000);
+        MAX_WARS_PER_TOWN = builder.comment("Wars a town may fight at once, attacking or defending")
+                .defineInRange("MAX_WARS_PER_TOWN", 3, 1, 100);
+        MAX_CONTESTED_CHUNKS = builder.comment("Chunks that can be contested at once in one war")
+                .defineInRange("MAX_CONTESTED_CHUNKS", 16, 1, 1024);
+        WAR_TICK_BUDGET_MICROS = builder.comment("Server thread time all wars together may use per tick, in microseconds.",
+                        "Work that does not fit is carried over to the next tick.")
+                .defineInRange("WAR_TICK_BUDGET_MICROS", 1000, 100, 50000);
+        builder.pop();
+
+        builder.push("vassals");
+        MAX_VASSAL_DEPTH = builder.comment("Most levels below a top liege (kingdom -> duchy -> town is 2)")
+                .defineInRange("MAX_VASSAL_DEPTH", 4, 1, 32);
+        builder.pop();
+
+        builder.push("bank");
+        BANK_SNAPSHOT_RECORDS = builder.comment("Bank ledger records between balance snapshots; a start replays at most about this many")
+                .defineInRange("BANK_SNAPSHOT_RECORDS", 10000, 100, 10000000);
+        builder.pop();
+
+        builder.push("upkeep");
+        UPKEEP_ENABLED = builder.comment("Periodically charge every town upkeep from its bank")
+                .define("UPKEEP_ENABLED", false);
+        UPKEEP_INTERVAL_MINUTES = builder.comment("Real-time minutes between upkeep cycles (1440 = daily).",
+                        "Time the server is down does not add extra cycles.")
+                .defineInRange("UPKEEP_INTERVAL_MINUTES", 1440, 1, 525600);
+        UPKEEP_PER_CLAIM = builder.comment("Gold per claimed chunk within the town's claim limit")
+                .defineInRange("UPKEEP_PER_CLAIM", 1, 0, 1000000);
+        UPKEEP_PER_CLAIM_OVER_LIMIT = builder.comment("Gold per claimed chunk beyond the claim limit (e.g. after members left)")
+                .defineInRange("UPKEEP_PER_CLAIM_OVER_LIMIT", 4, 0, 1000000);
+        UPKEEP_PER_CITIZEN = builder.comment("Tax in gold per citizen, leader included")
+                .defineInRange("UPKEEP_PER_CITIZEN", 0, 0, 1000000);
+        UPKEEP_TOWNS_PER_TICK = builder.comment("Most towns charged per tick while a cycle runs")
+                .defineInRange("UPKEEP_TOWNS_PER_TICK", 50, 1, 10000);
+        UPKEEP_TICK_BUDGET_MICROS = builder.comment("Server thread time upkeep may use per tick, in microseconds.",
+                        "Towns that do not fit are charged on the next tick.")
+                .defineInRange("UPKEEP_TICK_BUDGET_MICROS", 500, 50, 50000);
+        builder.pop();
+
+        builder.push("storage");
+        AUTOSAVE_INTERVAL_SECONDS = builder.comment("Seconds between background saves of changed town/player data (0 = only save on shutdown).",
+                        "With WORLD storage this only marks the data dirty; it is written with the next world save.")
+                .defineInRange("AUTOSAVE_INTERVAL_SECONDS", 300, 0, 86400);
+        STORAGE_MODE = builder.comment("On-disk layout: WORLD (saved with the world in <world>/data/feudalism.dat),",
+                        "JSON (config/feudalism/towns.json, players.json), SHARDED_JSON (one file per town, player shards)",
+                        "or BINARY (compressed config/feudalism/towns.dat). JSON can always be exported with /feudal storage export.",
+                        "Switching layouts migrates existing data on the next start.")
+                .defineEnum("STORAGE_MODE", StorageMode.WORLD);
+        builder.pop();
+
         COMMON_CONFIG = builder.build();
     }
 }
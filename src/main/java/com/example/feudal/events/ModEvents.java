@@ -1,35 +1,93 @@
 package com.example.feudal.events;
 
 import com.example.feudal.commands.FeudalDebugCommand;
+import com.example.feudal.commands.OnlineRoster;
+import com.example.feudal.commands.PlayerNameCache;
 import com.example.feudal.commands.TownCommand;
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.manager.BankManager;
+import com.example.feudal.manager.FactionManager;
+import com.example.feudal.manager.UpkeepScheduler;
+import com.example.feudal.manager.VassalManager;
+import com.example.feudal.manager.WarManager;
+import com.example.feudal.territory.TerritoryMapExporter;
+import com.example.feudal.town.TownInviteManager;
+import com.example.feudal.town.TownManager;
 import com.example.feudal.town.TownStorage;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
-import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.server.ServerStartingEvent;
 import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
 /**
- * COMMAND-ONLY VERSION
- *
- * Loads & saves towns + registers commands.
- * No protections, no territory checks.
+ * Loads & saves towns, runs autosave, expires invites, runs wars, drives the map export + registers commands.
+ * Claim protection lives in protection.ProtectionEvents.
  */
 @EventBusSubscriber(modid = "feudalism")
 public class ModEvents {
 
+    private static int ticksSinceAutosave = 0;
+
     // -------------------------------------------------------------------------
     // LOAD / SAVE
     // -------------------------------------------------------------------------
 
+    // Levels exist by now (needed for WORLD storage) and no player can have joined yet
     @SubscribeEvent
-    public static void onServerStarted(ServerStartedEvent event) {
-        TownStorage.loadAll();
+    public static void onServerStarting(ServerStartingEvent event) {
+        TownStorage.loadAll(event.getServer());
+        BankManager.load();
+        UpkeepScheduler.load();
+        VassalManager.load();
+        FactionManager.load();
+        WarManager.load(event.getServer());
+        TerritoryMapExporter.reset();
+        ticksSinceAutosave = 0;
     }
 
     @SubscribeEvent
     public static void onServerStopping(ServerStoppingEvent event) {
+        UpkeepScheduler.shutdown();
+        BankManager.shutdown();
         TownStorage.saveAll();
+        TerritoryMapExporter.flush();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(ServerTickEvent.Post event) {
+        TownInviteManager.tick();
+        WarManager.tick();
+        UpkeepScheduler.tick();
+        BankManager.tick();
+        TownManager.publishSnapshots();
+        TerritoryMapExporter.tick();
+
+        int intervalSeconds = FeudalConfig.AUTOSAVE_INTERVAL_SECONDS.get();
+        if (intervalSeconds <= 0) return;
+
+        if (++ticksSinceAutosave >= intervalSeconds * 20) {
+            ticksSinceAutosave = 0;
+            TownStorage.autosave();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            PlayerNameCache.remember(player); // keeps names fresh after a rename
+            OnlineRoster.playerLoggedIn(player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            OnlineRoster.playerLoggedOut(player);
+        }
     }
 
     // -------------------------------------------------------------------------
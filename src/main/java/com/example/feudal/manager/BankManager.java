@@ -0,0 +1,222 @@
+package com.example.feudal.manager;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.BankLedger;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.TownStorage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Town banks: every change of a town's gold goes through here and is recorded in the
+ * BankLedger before Town.bankGold is updated to match.
+ *
+ * On load the ledger wins over the town data: town data is only saved periodically,
+ * the ledger is written every tick, so after a crash it holds the newer balances.
+ * Towns with gold but no ledger account (data from before the ledger) get an OPENING record.
+ * The ledger is kept beside the town data (TownStorage.getBankDir), so it always
+ * matches the world or config folder the towns were loaded from.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Call load() after TownStorage.loadAll(), tick() every server tick and shutdown()
+ *    before TownStorage.saveAll()
+ *  - If the ledger cannot be opened, every operation returns UNAVAILABLE until restart
+ *  - Call townRemoved() when a town is disbanded
+ */
+public final class BankManager {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-Bank");
+
+    public enum Result {
+        OK,
+        INVALID_AMOUNT,
+        INSUFFICIENT_FUNDS,
+        SAME_TOWN,
+        UNAVAILABLE
+    }
+
+    private static BankLedger ledger;
+    private static boolean flushFailed = false; // log a failing disk once, not every tick
+
+    private BankManager() {
+    }
+
+    // ========================================================================
+    // LIFECYCLE
+    // ========================================================================
+
+    public static void load() {
+        shutdown();
+        BankLedger opened = new BankLedger(TownStorage.getBankDir());
+        long started = System.nanoTime();
+        int replayed;
+        try {
+            replayed = opened.open();
+        } catch (IOException e) {
+            LOGGER.error("Failed to open the bank ledger – banking is disabled until restart.", e);
+            return;
+        }
+        ledger = opened;
+        flushFailed = false;
+
+        int corrected = 0;
+        int opening = 0;
+        for (Town town : TownManager.getTownMap().values()) {
+            if (ledger.hasAccount(town.getId())) {
+                long balance = ledger.getBalance(town.getId());
+                if (balance != town.getBankGold()) {
+                    LOGGER.warn("Bank of {} was {} in the town data but {} in the ledger; using the ledger.",
+                            town.getName(), town.getBankGold(), balance);
+                    town.setBankGold(balance);
+                    corrected++;
+                }
+            } else if (town.getBankGold() != 0L) {
+                try {
+                    ledger.record(BankLedger.Type.OPENING, town.getId(), town.getBankGold());
+                    opening++;
+                } catch (IOException e) {
+                    LOGGER.error("Failed to record the opening balance of {}", town.getName(), e);
+                }
+            }
+        }
+
+        LOGGER.info("Bank ledger: {} accounts, replayed {} records in {} ms ({} KiB on disk), {} corrected, {} opened.",
+                ledger.getAccountCount(), replayed, (System.nanoTime() - started) / 1_000_000,
+                ledger.sizeOnDisk() / 1024, corrected, opening);
+    }
+
+    public static void tick() {
+        if (ledger == null) return;
+        try {
+            ledger.tick(FeudalConfig.BANK_SNAPSHOT_RECORDS.get());
+            flushFailed = false;
+        } catch (IOException e) {
+            if (!flushFailed) LOGGER.error("Failed to write the bank ledger; retrying every tick.", e);
+            flushFailed = true;
+        }
+    }
+
+    /**
+     * Flushes, snapshots and closes the ledger (the writes finish on the storage thread).
+     */
+    public static void shutdown() {
+        if (ledger == null) return;
+        try {
+            ledger.shutdown();
+        } catch (IOException e) {
+            LOGGER.error("Failed to write the bank ledger on shutdown", e);
+        }
+        ledger = null;
+    }
+
+    // ========================================================================
+    // OPERATIONS
+    // ========================================================================
+
+    public static Result deposit(Town town, long amount) {
+        return change(town, BankLedger.Type.DEPOSIT, amount);
+    }
+
+    public static Result withdraw(Town town, long amount) {
+        if (amount <= 0L) return Result.INVALID_AMOUNT;
+        if (ledger != null && town.getBankGold() < amount) return Result.INSUFFICIENT_FUNDS;
+        return change(town, BankLedger.Type.WITHDRAW, -amount);
+    }
+
+    public static Result transfer(Town from, Town to, long amount) {
+        if (ledger == null) return Result.UNAVAILABLE;
+        if (amount <= 0L) return Result.INVALID_AMOUNT;
+        if (from.getId().equals(to.getId())) return Result.SAME_TOWN;
+        if (from.getBankGold() < amount) return Result.INSUFFICIENT_FUNDS;
+
+        try {
+            ledger.transfer(from.getId(), to.getId(), amount);
+        } catch (IOException e) {
+            LOGGER.error("Failed to record a transfer from {} to {}", from.getName(), to.getName(), e);
+            return Result.UNAVAILABLE;
+        }
+        from.setBankGold(ledger.getBalance(from.getId()));
+        to.setBankGold(ledger.getBalance(to.getId()));
+        return Result.OK;
+    }
+
+    /**
+     * Takes upkeep, as much as the town has. A positive amount is recorded even when
+     * nothing could be taken, so getLastUpkeep() shows the town was charged.
+     *
+     * @return gold actually taken, or -1 if the bank is unavailable (nothing was recorded)
+     */
+    public static long chargeUpkeep(Town town, long amount) {
+        if (ledger == null) return -1L;
+        if (amount <= 0L) return 0L;
+
+        long taken = Math.max(0L, Math.min(amount, town.getBankGold()));
+        try {
+            town.setBankGold(ledger.record(BankLedger.Type.UPKEEP, town.getId(), -taken));
+        } catch (IOException e) {
+            LOGGER.error("Failed to record upkeep of {} for {}", taken, town.getName(), e);
+            return -1L;
+        }
+        return taken;
+    }
+
+    /**
+     * Closes the account of a disbanded town; its gold is gone.
+     */
+    public static void townRemoved(Town town) {
+        if (ledger == null) return;
+        try {
+            ledger.closeAccount(town.getId());
+        } catch (IOException e) {
+            LOGGER.error("Failed to close the bank account of {}", town.getName(), e);
+        }
+    }
+
+    private static Result change(Town town, BankLedger.Type type, long amount) {
+        if (ledger == null) return Result.UNAVAILABLE;
+        if (amount == 0L || (type == BankLedger.Type.DEPOSIT && amount < 0L)) return Result.INVALID_AMOUNT;
+
+        long balance;
+        try {
+            balance = ledger.record(type, town.getId(), amount);
+        } catch (IOException e) {
+            LOGGER.error("Failed to record {} of {} for {}", type, amount, town.getName(), e);
+            return Result.UNAVAILABLE;
+        }
+        town.setBankGold(balance);
+        return Result.OK;
+    }
+
+    // ========================================================================
+    // HISTORY
+    // ========================================================================
+
+    public static boolean isAvailable() {
+        return ledger != null;
+    }
+
+    /**
+     * @return time of the town's last upkeep charge (epoch milliseconds), 0 if none
+     */
+    public static long getLastUpkeep(Town town) {
+        return ledger == null ? 0L : ledger.getLastUpkeep(town.getId());
+    }
+
+    public static int getHistorySize(Town town) {
+        return ledger == null ? 0 : ledger.getRecordCount(town.getId());
+    }
+
+    /**
+     * Newest first. Reads only the requested entries from disk.
+     */
+    public static List<BankLedger.Entry> getHistory(Town town, int skip, int limit) throws IOException {
+        if (ledger == null) return Collections.emptyList();
+        return ledger.history(town.getId(), skip, limit);
+    }
+}
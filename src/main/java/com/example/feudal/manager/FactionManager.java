@@ -1,8 +1,234 @@
 package com.example.feudal.manager;
 
-public class FactionManager {
+import com.example.feudal.town.Faction;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-    public void createFaction(String name) {
-        // TODO: implement
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+/**
+ * Factions: alliances of towns with one leading town.
+ *
+ * Each Faction keeps its member, claim and bank totals up to date from its towns'
+ * own changes, so stats and rankings never iterate TownManager.getTownMap(); only
+ * load() does, once.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Membership is persisted on each town (Town.getFactionName / isFactionLeader);
+ *    load() rebuilds the factions after TownStorage.loadAll()
+ *  - A faction exists only while it has towns; the last town leaving dissolves it
+ *  - Call townRemoved() when a town is disbanded
+ */
+public final class FactionManager {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-Factions");
+
+    public enum Result {
+        OK,
+        NAME_TAKEN,
+        ALREADY_IN_FACTION,
+        NO_SUCH_FACTION,
+        NOT_INVITED
+    }
+
+    public enum Stat {
+        TOWNS(f -> f.getTowns().size()),
+        MEMBERS(Faction::getMemberCount),
+        CLAIMS(Faction::getClaimCount),
+        BANK(Faction::getBankGold);
+
+        private final ToLongFunction<Faction> value;
+
+        Stat(ToLongFunction<Faction> value) {
+            this.value = value;
+        }
+
+        public long of(Faction faction) {
+            return value.applyAsLong(faction);
+        }
+    }
+
+    private static final Map<String, Faction> BY_NAME = new LinkedHashMap<>(); // folded name -> faction
+    private static final Map<UUID, Set<String>> INVITES = new HashMap<>();     // town -> folded faction names
+
+    private FactionManager() {
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    /**
+     * Rebuilds all factions from the towns' persisted fields. Call after TownStorage.loadAll().
+     */
+    public static void load() {
+        BY_NAME.clear();
+        INVITES.clear();
+
+        for (Town town : TownManager.getTownMap().values()) {
+            String name = town.getFactionName();
+            if (name == null) continue;
+            Faction faction = BY_NAME.computeIfAbsent(fold(name), k -> new Faction(name, town.getId()));
+            faction.addTown(town);
+        }
+
+        for (Faction faction : BY_NAME.values()) {
+            Town leader = null;
+            for (UUID id : faction.getTowns()) {
+                Town town = TownManager.getTown(id);
+                if (town.isFactionLeader()) {
+                    if (leader == null) leader = town;
+                    else {
+                        town.loadFaction(faction.getName(), false); // keep only the first
+                        town.markDirty();
+                    }
+                }
+            }
+            if (leader == null) {
+                leader = successor(faction);
+                LOGGER.warn("Faction {} had no leading town; {} leads it now.", faction.getName(), leader.getName());
+            }
+            faction.setLeaderTown(leader);
+        }
+    }
+
+    // ========================================================================
+    // CHANGES
+    // ========================================================================
+
+    /**
+     * Founds a faction led by the given town.
+     */
+    public static Result createFaction(String name, Town founder) {
+        if (founder.getFaction() != null) return Result.ALREADY_IN_FACTION;
+        String key = fold(name);
+        if (BY_NAME.containsKey(key)) return Result.NAME_TAKEN;
+
+        Faction faction = new Faction(name, founder.getId());
+        BY_NAME.put(key, faction);
+        faction.addTown(founder);
+        faction.setLeaderTown(founder);
+        INVITES.remove(founder.getId());
+        return Result.OK;
+    }
+
+    /**
+     * @return false if the town is already in the faction or already invited
+     */
+    public static boolean invite(Faction faction, Town town) {
+        if (town.getFaction() == faction) return false;
+        return INVITES.computeIfAbsent(town.getId(), k -> new HashSet<>()).add(fold(faction.getName()));
+    }
+
+    public static Result join(Town town, String name) {
+        if (town.getFaction() != null) return Result.ALREADY_IN_FACTION;
+        String key = fold(name);
+        Faction faction = BY_NAME.get(key);
+        if (faction == null) return Result.NO_SUCH_FACTION;
+        Set<String> invites = INVITES.get(town.getId());
+        if (invites == null || !invites.contains(key)) return Result.NOT_INVITED;
+
+        INVITES.remove(town.getId());
+        faction.addTown(town);
+        return Result.OK;
+    }
+
+    /**
+     * Takes a town out of its faction. A leaving leader hands over to the town with the
+     * most members; the faction dissolves when its last town leaves.
+     *
+     * @return false if the town was in no faction
+     */
+    public static boolean leave(Town town) {
+        Faction faction = town.getFaction();
+        if (faction == null) return false;
+
+        boolean wasLeader = town.getId().equals(faction.getLeaderTown());
+        faction.removeTown(town);
+
+        if (faction.getTowns().isEmpty()) {
+            dissolve(faction);
+        } else if (wasLeader) {
+            faction.setLeaderTown(successor(faction));
+        }
+        return true;
+    }
+
+    /**
+     * Drops a disbanded town from its faction and from pending invites.
+     */
+    public static void townRemoved(Town town) {
+        INVITES.remove(town.getId());
+        leave(town);
+    }
+
+    // ========================================================================
+    // QUERIES
+    // ========================================================================
+
+    public static Faction getFaction(String name) {
+        return BY_NAME.get(fold(name));
+    }
+
+    public static Collection<Faction> getFactions() {
+        return Collections.unmodifiableCollection(BY_NAME.values());
+    }
+
+    public static Set<String> getInvites(UUID town) {
+        Set<String> invites = INVITES.get(town);
+        return invites == null ? Collections.emptySet() : Collections.unmodifiableSet(invites);
+    }
+
+    /**
+     * @return up to limit factions, highest value of the stat first. O(factions log factions);
+     *         every value read is an O(1) aggregate.
+     */
+    public static List<Faction> getTop(Stat stat, int limit) {
+        List<Faction> out = new ArrayList<>(BY_NAME.values());
+        out.sort(Comparator.<Faction>comparingLong(stat::of).reversed().thenComparing(Faction::getName));
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static void dissolve(Faction faction) {
+        String key = fold(faction.getName());
+        BY_NAME.remove(key);
+        INVITES.values().removeIf(invites -> invites.remove(key) && invites.isEmpty());
+    }
+
+    /**
+     * @return the member town with the most citizens
+     */
+    private static Town successor(Faction faction) {
+        Town best = null;
+        for (UUID id : faction.getTowns()) {
+            Town town = TownManager.getTown(id);
+            if (town != null && (best == null || town.getCitizens().size() > best.getCitizens().size())) {
+                best = town;
+            }
+        }
+        return best;
     }
 }
@@ -0,0 +1,136 @@
+package com.example.feudal.manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs periodic tasks spread over the ticks of a period, under a time budget per tick.
+ *
+ * Every task sits in one of `period` buckets (assigned round-robin), and each tick only
+ * the current bucket becomes due, so N tasks cost about N / period runs per tick.
+ * Due tasks run until the tick's budget is used up; the rest stay queued and run first
+ * on the next tick. A task is never skipped, only delayed, and is told how many ticks
+ * passed since its last run so it can advance its timers by the real elapsed time.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - At least one due task runs per tick, so a slow task cannot stall the queue
+ *  - Cancelled tasks are dropped lazily the next time their bucket comes up
+ */
+public final class TickBudgetScheduler {
+
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * @param elapsed ticks since this task last ran (or was scheduled)
+         * @return false to stop running this task
+         */
+        boolean run(int elapsed);
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static final class Entry {
+        private final Task task;
+        private long lastRun;
+        private boolean queued;
+        private boolean cancelled;
+
+        private Entry(Task task, long now) {
+            this.task = task;
+            this.lastRun = now;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final int period;
+    private final List<List<Entry>> buckets;
+    private final ArrayDeque<Entry> due = new ArrayDeque<>();
+
+    private long now = 0L;
+    private int nextBucket = 0;
+    private int size = 0;
+
+    public TickBudgetScheduler(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be at least 1");
+        this.period = period;
+        this.buckets = new ArrayList<>(period);
+        for (int i = 0; i < period; i++) buckets.add(new ArrayList<>());
+    }
+
+    public Entry schedule(Task task) {
+        Entry entry = new Entry(task, now);
+        buckets.get(nextBucket).add(entry);
+        nextBucket = (nextBucket + 1) % period;
+        size++;
+        return entry;
+    }
+
+    /**
+     * Advances one tick and runs due tasks until budgetNanos is spent.
+     */
+    public void tick(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        now++;
+
+        List<Entry> bucket = buckets.get((int) (now % period));
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry entry = bucket.get(i);
+            if (entry.cancelled) {
+                size--;
+                continue;
+            }
+            bucket.set(kept++, entry);
+            if (!entry.queued) { // still waiting from last round: runs once, not twice
+                entry.queued = true;
+                due.addLast(entry);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+
+        boolean first = true;
+        while (!due.isEmpty() && (first || System.nanoTime() < deadline)) {
+            Entry entry = due.pollFirst();
+            entry.queued = false;
+            if (entry.cancelled) continue;
+
+            int elapsed = (int) Math.min(Integer.MAX_VALUE, now - entry.lastRun);
+            entry.lastRun = now;
+            if (!entry.task.run(elapsed)) entry.cancelled = true;
+            first = false;
+        }
+    }
+
+    public void clear() {
+        for (List<Entry> bucket : buckets) {
+            for (Entry entry : bucket) entry.cancelled = true;
+            bucket.clear();
+        }
+        due.clear();
+        size = 0;
+    }
+
+    /**
+     * @return scheduled tasks, including cancelled ones not dropped yet
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return due tasks the budget did not allow to run yet
+     */
+    public int backlog() {
+        return due.size();
+    }
+}
@@ -1,28 +1,191 @@
 package com.example.feudal.town;
 
+import com.example.feudal.config.FeudalConfig;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Pending town invites.
+ *
+ * Every invite is indexed both ways (player -> towns, town -> players), so accepting,
+ * denying and disbanding only touch the invites involved. Invites expire after
+ * invites.INVITE_TTL_SECONDS and are capped per town and per player.
+ *
+ * Expiry is lazy: lookups ignore expired invites, and tick() pops a few
+ * entries off the front of an insertion-ordered queue, never scanning the maps.
+ * Invites removed early stay in the queue flagged as dead until they reach the front.
+ *
+ * IMPORTANT:
+ *  - The server thread is the only writer
+ *  - The per-player / per-town maps are copy-on-write (they hold a handful of entries
+ *    thanks to the caps), so hasInvite, getInvitees and getInvitingTowns are safe from
+ *    any thread
+ */
 public class TownInviteManager {
 
-    private static final Map<UUID, Set<UUID>> INVITES = new HashMap<>();
+    public enum Result {
+        INVITED,
+        REFRESHED,
+        TOWN_LIMIT_REACHED
+    }
+
+    private static final int MAX_EXPIRED_PER_TICK = 32;
+
+    private static final class Invite {
+        final UUID town;
+        final UUID player;
+        final long expiresAt;
+        boolean dead;
 
-    public static void invitePlayer(UUID town, UUID player) {
-        INVITES.computeIfAbsent(player, k -> new HashSet<>()).add(town);
+        Invite(UUID town, UUID player, long expiresAt) {
+            this.town = town;
+            this.player = player;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // player -> (town -> invite), oldest first. Inner maps are never mutated once published.
+    private static final Map<UUID, Map<UUID, Invite>> BY_PLAYER = new ConcurrentHashMap<>();
+    // town -> (player -> invite). Inner maps are never mutated once published.
+    private static final Map<UUID, Map<UUID, Invite>> BY_TOWN = new ConcurrentHashMap<>();
+    // creation order == expiry order while the TTL is unchanged. Server thread only.
+    private static final ArrayDeque<Invite> EXPIRY = new ArrayDeque<>();
+
+    public static Result invitePlayer(UUID town, UUID player) {
+        long now = System.currentTimeMillis();
+        expire(now, MAX_EXPIRED_PER_TICK);
+
+        Invite existing = find(town, player, now);
+        if (existing == null && townInvites(town).size() >= FeudalConfig.MAX_INVITES_PER_TOWN.get()) {
+            return Result.TOWN_LIMIT_REACHED;
+        }
+        if (existing != null) {
+            unlink(existing);
+        } else {
+            Map<UUID, Invite> playerInvites = BY_PLAYER.get(player);
+            if (playerInvites != null && playerInvites.size() >= FeudalConfig.MAX_INVITES_PER_PLAYER.get()) {
+                unlink(playerInvites.values().iterator().next()); // drop the player's oldest invite
+            }
+        }
+
+        Invite invite = new Invite(town, player, now + FeudalConfig.INVITE_TTL_SECONDS.get() * 1000L);
+        BY_PLAYER.put(player, with(BY_PLAYER.get(player), town, invite));
+        BY_TOWN.put(town, with(BY_TOWN.get(town), player, invite));
+        EXPIRY.addLast(invite);
+        return existing == null ? Result.INVITED : Result.REFRESHED;
     }
 
     public static boolean hasInvite(UUID town, UUID player) {
-        return INVITES.getOrDefault(player, Collections.emptySet()).contains(town);
+        Map<UUID, Invite> invites = BY_PLAYER.get(player);
+        Invite invite = invites == null ? null : invites.get(town);
+        return invite != null && invite.expiresAt > System.currentTimeMillis();
     }
 
     public static void removeInvite(UUID town, UUID player) {
-        Set<UUID> set = INVITES.get(player);
-        if (set == null) return;
-        set.remove(town);
-        if (set.isEmpty()) INVITES.remove(player);
+        Map<UUID, Invite> invites = BY_PLAYER.get(player);
+        Invite invite = invites == null ? null : invites.get(town);
+        if (invite != null) unlink(invite);
     }
 
+    /**
+     * Drops all invites of a town; costs only that town's own invites.
+     */
     public static void clearInvitesForTown(UUID town) {
-        for (Set<UUID> s : INVITES.values()) s.remove(town);
-        INVITES.entrySet().removeIf(e -> e.getValue().isEmpty());
+        Map<UUID, Invite> invites = BY_TOWN.get(town);
+        if (invites == null) return;
+        for (Invite invite : invites.values()) {
+            unlink(invite);
+        }
+    }
+
+    /**
+     * @return players with a live invite from the town
+     */
+    public static List<UUID> getInvitees(UUID town) {
+        List<UUID> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Invite invite : townInvites(town).values()) {
+            if (invite.expiresAt > now) out.add(invite.player);
+        }
+        return out;
+    }
+
+    /**
+     * @return towns with a live invite for the player, oldest first
+     */
+    public static List<UUID> getInvitingTowns(UUID player) {
+        List<UUID> out = new ArrayList<>();
+        Map<UUID, Invite> invites = BY_PLAYER.get(player);
+        if (invites == null) return out;
+        long now = System.currentTimeMillis();
+        for (Invite invite : invites.values()) {
+            if (invite.expiresAt > now) out.add(invite.town);
+        }
+        return out;
+    }
+
+    /**
+     * Called every server tick. Pops at most a handful of expired / dead invites.
+     */
+    public static void tick() {
+        if (!EXPIRY.isEmpty()) expire(System.currentTimeMillis(), MAX_EXPIRED_PER_TICK);
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static Invite find(UUID town, UUID player, long now) {
+        Map<UUID, Invite> invites = BY_PLAYER.get(player);
+        Invite invite = invites == null ? null : invites.get(town);
+        if (invite == null) return null;
+        if (invite.expiresAt <= now) {
+            unlink(invite);
+            return null;
+        }
+        return invite;
+    }
+
+    private static Map<UUID, Invite> townInvites(UUID town) {
+        return BY_TOWN.getOrDefault(town, Collections.emptyMap());
+    }
+
+    private static Map<UUID, Invite> with(Map<UUID, Invite> invites, UUID key, Invite invite) {
+        Map<UUID, Invite> copy = invites == null ? new LinkedHashMap<>() : new LinkedHashMap<>(invites);
+        copy.put(key, invite);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static void without(Map<UUID, Map<UUID, Invite>> index, UUID owner, UUID key, Invite invite) {
+        Map<UUID, Invite> invites = index.get(owner);
+        if (invites == null || invites.get(key) != invite) return;
+        if (invites.size() == 1) {
+            index.remove(owner);
+        } else {
+            Map<UUID, Invite> copy = new LinkedHashMap<>(invites);
+            copy.remove(key);
+            index.put(owner, Collections.unmodifiableMap(copy));
+        }
+    }
+
+    private static void expire(long now, int budget) {
+        while (budget-- > 0) {
+            Invite head = EXPIRY.peekFirst();
+            if (head == null || (!head.dead && head.expiresAt > now)) return;
+            EXPIRY.pollFirst();
+            if (!head.dead) unlink(head);
+        }
+    }
+
+    /**
+     * Removes an invite from both indexes. Its queue entry is left behind, flagged dead.
+     */
+    private static void unlink(Invite invite) {
+        if (invite.dead) return;
+        invite.dead = true;
+
+        without(BY_PLAYER, invite.player, invite.town, invite);
+        without(BY_TOWN, invite.town, invite.player, invite);
     }
 }
@@ -2,45 +2,345 @@ package com.example.feudal.town;
 
 import com.example.feudal.config.FeudalConfig;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Global town registry.
+ *
+ * IMPORTANT:
+ *  - The server thread is the only writer. Live Town objects are mutable and must
+ *    only be touched there
+ *  - Other threads (savers, exporters, async chat) read TownSnapshots instead: every
+ *    changed town is re-snapshotted once per tick and swapped in atomically
+ *  - The maps are concurrent so off-thread lookups never see a map mid-resize
+ *  - Every published snapshot gets a new version; changesSince(v) lists only what
+ *    changed after v, for consumers that keep their own derived state
+ */
 public class TownManager {
 
-    private static final Map<UUID, Town> TOWNS = new HashMap<>();
-    private static final Map<String, UUID> NAME_TO_ID = new HashMap<>();
+    private static final Map<UUID, Town> TOWNS = new ConcurrentHashMap<>();
+    private static final Map<String, UUID> NAME_TO_ID = new ConcurrentHashMap<>(); // folded name -> id
+    private static final TownNameIndex NAMES = new TownNameIndex(); // prefix queries, server thread only
+    private static final Map<UUID, TownSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    // Towns changed since the last publishSnapshots(). Server thread only.
+    private static final List<Town> PUBLISH_QUEUE = new ArrayList<>();
 
     public static Town createTown(String name, UUID leader) {
         UUID id = UUID.randomUUID();
         Town town = new Town(id, name, leader);
 
-        TOWNS.put(id, town);
-        NAME_TO_ID.put(name.toLowerCase(), id);
+        register(town);
+        indexName(town);
 
         TownPlayerData d = TownPlayerManager.get(leader);
         d.setTownId(id);
         d.setRank(TownRank.LEADER);
 
+        town.markDirty(); // first snapshot goes out with the next publish
         return town;
     }
 
     public static Town getTown(UUID id) { return TOWNS.get(id); }
 
     public static Town getTownByName(String name) {
-        UUID id = NAME_TO_ID.get(name.toLowerCase());
+        UUID id = NAME_TO_ID.get(TownNameIndex.fold(name));
         return id == null ? null : TOWNS.get(id);
     }
 
+    public static boolean isNameTaken(String name) {
+        return NAME_TO_ID.containsKey(TownNameIndex.fold(name));
+    }
+
+    /**
+     * Town names starting with the prefix, case-insensitive and alphabetical. Cost depends
+     * on the prefix length and limit, not on the number of towns. Server thread only.
+     */
+    public static List<String> getTownNamesStartingWith(String prefix, int limit) {
+        return NAMES.startingWith(prefix, limit);
+    }
+
+    /**
+     * Renames a town, keeping the name indexes in step. Changing only the case is allowed.
+     *
+     * @return false if another town already uses the name
+     */
+    public static boolean renameTown(Town town, String newName) {
+        UUID holder = NAME_TO_ID.get(TownNameIndex.fold(newName));
+        if (holder != null && !holder.equals(town.getId())) return false;
+
+        unindexName(town);
+        town.setName(newName);
+        indexName(town);
+        return true;
+    }
+
+    /**
+     * Live towns. Server thread only; use getSnapshots() anywhere else.
+     */
     public static Map<UUID, Town> getTownMap() { return TOWNS; }
 
     // === RESTORED METHOD ===
     public static void setTownMap(Map<UUID, Town> towns) {
+        for (Town town : TOWNS.values()) {
+            town.registered = false;
+        }
         TOWNS.clear();
         NAME_TO_ID.clear();
-
-        TOWNS.putAll(towns);
+        NAMES.clear();
+        SNAPSHOTS.clear();
+        PUBLISH_QUEUE.clear();
+        CHANGE_LOG.clear();
+        LOGGED_AT.clear();
+        TOMBSTONES.clear();
+        SUPERSEDED.clear();
 
         for (Map.Entry<UUID, Town> entry : towns.entrySet()) {
             Town town = entry.getValue();
-            NAME_TO_ID.put(town.getName().toLowerCase(), entry.getKey());
+            register(town);
+            indexName(town);
+            town.publishPending = false;
+            publish(town.getId(), TownSnapshot.of(town, null, ++lastVersion));
+        }
+        horizon = lastVersion; // older versions describe towns that no longer exist
+        version = lastVersion;
+
+        ClaimIndex.rebuild(TOWNS.values());
+        MembershipEpoch.bump();
+    }
+
+    /**
+     * Removes a town from the registry and its name from the name indexes, and drops its
+     * claims from the claim index. Its snapshot disappears with the next publishSnapshots().
+     */
+    public static Town removeTown(UUID id) {
+        Town town = TOWNS.remove(id);
+        if (town != null) {
+            unindexName(town);
+            town.registered = false;
+            if (!town.publishPending) {
+                town.publishPending = true;
+                PUBLISH_QUEUE.add(town);
+            }
+            ClaimIndex.removeAll(town);
+            MembershipEpoch.bump();
+        }
+        return town;
+    }
+
+    private static void register(Town town) {
+        TOWNS.put(town.getId(), town);
+        town.registered = true;
+    }
+
+    private static void indexName(Town town) {
+        if (town.getName() == null) return;
+        if (NAMES.put(town.getName(), town.getId())) {
+            NAME_TO_ID.put(TownNameIndex.fold(town.getName()), town.getId());
+        }
+    }
+
+    private static void unindexName(Town town) {
+        if (town.getName() == null) return;
+        NAMES.remove(town.getName(), town.getId());
+        NAME_TO_ID.remove(TownNameIndex.fold(town.getName()), town.getId());
+    }
+
+    // ========================================================================
+    // SNAPSHOTS (readable from any thread)
+    // ========================================================================
+
+    // Removals remembered for changesSince(); beyond this, older readers must resync
+    private static final int MAX_TOMBSTONES = 1024;
+
+    // Latest published version; everything in CHANGE_LOG up to it is complete
+    private static volatile long version = 0L;
+    // Oldest version changesSince() can still answer from
+    private static volatile long horizon = 0L;
+
+    // version -> change. Holds only the newest change of each town.
+    private static final ConcurrentSkipListMap<Long, Change> CHANGE_LOG = new ConcurrentSkipListMap<>();
+
+    // Server thread only
+    private static long lastVersion = 0L;
+    private static final Map<UUID, Long> LOGGED_AT = new HashMap<>();
+    private static final ArrayDeque<Long> TOMBSTONES = new ArrayDeque<>();
+    // Entries replaced by a newer change of the same town, dropped once version covers it
+    private static final List<Long> SUPERSEDED = new ArrayList<>();
+
+    /**
+     * One CHANGE_LOG entry; snapshot is null when the town was removed.
+     */
+    private static final class Change {
+        final UUID townId;
+        final TownSnapshot snapshot;
+
+        Change(UUID townId, TownSnapshot snapshot) {
+            this.townId = townId;
+            this.snapshot = snapshot;
+        }
+    }
+
+    public static TownSnapshot getSnapshot(UUID id) {
+        return SNAPSHOTS.get(id);
+    }
+
+    /**
+     * Latest published snapshot of every town. Each element is consistent on its own;
+     * towns changed during iteration show up either before or after the change.
+     */
+    public static Collection<TownSnapshot> getSnapshots() {
+        return Collections.unmodifiableCollection(SNAPSHOTS.values());
+    }
+
+    /**
+     * Version of the newest published snapshot. Read it before getSnapshots() when doing
+     * a full sync, then follow up with changesSince(thatVersion).
+     */
+    public static long getVersion() {
+        return version;
+    }
+
+    /**
+     * Every town published or removed after the given version. Costs only the changes,
+     * not the number of towns.
+     *
+     * @return the changes, or null if the version is too old to answer (towns were reloaded
+     *         or too many were removed since); do a full sync in that case
+     */
+    public static TownChanges changesSince(long since) {
+        long upTo = version; // read first: all log entries up to it are in place
+        if (since < horizon) return null;
+
+        // A superseded entry can still be in the log for a moment; the later one wins
+        Map<UUID, Change> latest = new LinkedHashMap<>();
+        for (Change change : CHANGE_LOG.subMap(since, false, upTo, true).values()) {
+            latest.remove(change.townId); // keeps version order
+            latest.put(change.townId, change);
+        }
+
+        List<TownSnapshot> updated = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        for (Change change : latest.values()) {
+            if (change.snapshot != null) updated.add(change.snapshot);
+            else removed.add(change.townId);
+        }
+        if (since < horizon) return null; // pruned while we were reading
+        return new TownChanges(upTo, updated, removed);
+    }
+
+    /**
+     * Called from Town.markDirty the first time a registered town changes after a publish.
+     */
+    static void queuePublish(Town town) {
+        PUBLISH_QUEUE.add(town);
+    }
+
+    /**
+     * Re-snapshots every town changed since the last call. Runs at the end of each server
+     * tick, so a command that touches a town several times publishes only its final state.
+     * Unchanged parts are shared with the previous snapshot.
+     */
+    public static void publishSnapshots() {
+        if (PUBLISH_QUEUE.isEmpty()) return;
+
+        for (Town town : PUBLISH_QUEUE) {
+            town.publishPending = false;
+            UUID id = town.getId();
+            if (town.registered) {
+                publish(id, TownSnapshot.of(town, SNAPSHOTS.get(id), ++lastVersion));
+            } else if (SNAPSHOTS.containsKey(id)) {
+                publish(id, null);
+            }
+        }
+        PUBLISH_QUEUE.clear();
+        version = lastVersion; // makes the whole batch visible to changesSince() at once
+
+        // Only now: a reader whose upTo predates this batch still finds the old entries
+        for (Long at : SUPERSEDED) CHANGE_LOG.remove(at);
+        SUPERSEDED.clear();
+    }
+
+    /**
+     * @param snapshot the new snapshot, or null to publish a removal
+     */
+    private static void publish(UUID id, TownSnapshot snapshot) {
+        long at = snapshot != null ? snapshot.getVersion() : ++lastVersion;
+        CHANGE_LOG.put(at, new Change(id, snapshot));
+        Long previous = LOGGED_AT.put(id, at);
+        if (previous != null) SUPERSEDED.add(previous); // removed after version moves past at
+
+        if (snapshot != null) {
+            SNAPSHOTS.put(id, snapshot);
+            return;
+        }
+
+        SNAPSHOTS.remove(id);
+        TOMBSTONES.addLast(at);
+        if (TOMBSTONES.size() > MAX_TOMBSTONES) {
+            long oldest = TOMBSTONES.pollFirst();
+            horizon = oldest;
+            Change dropped = CHANGE_LOG.remove(oldest);
+            if (dropped != null) LOGGED_AT.remove(dropped.townId, oldest); // unless superseded since
+        }
+    }
+
+    // ========================================================================
+    // MEMBERSHIP / RANKS
+    // Town holds the authoritative rank index; these also keep the
+    // TownPlayerData mirror (townId + rank) in step.
+    // ========================================================================
+
+    public static void addMember(Town town, UUID player) {
+        town.addCitizen(player);
+        TownPlayerData d = TownPlayerManager.get(player);
+        d.setTownId(town.getId());
+        d.setRank(TownRank.CITIZEN);
+    }
+
+    public static void removeMember(Town town, UUID player) {
+        town.removeCitizen(player);
+        TownPlayerData d = TownPlayerManager.get(player);
+        d.setTownId(null);
+        d.setRank(TownRank.CITIZEN);
+    }
+
+    /**
+     * Promotes to / demotes from officer. Leadership changes go through transferLeadership.
+     */
+    public static void setOfficer(Town town, UUID player, boolean officer) {
+        town.setOfficer(player, officer);
+        TownPlayerManager.get(player).setRank(town.getRank(player));
+    }
+
+    public static void transferLeadership(Town town, UUID newLeader) {
+        UUID previous = town.getLeader();
+        town.setLeader(newLeader);
+        if (previous != null && town.isMember(previous)) {
+            TownPlayerManager.get(previous).setRank(TownRank.CITIZEN);
+        }
+        TownPlayerManager.get(newLeader).setRank(TownRank.LEADER);
+    }
+
+    /**
+     * Called after loading. Data saved before towns kept their own rank index only has
+     * officers in TownPlayerData, so those are copied into their town first; after that
+     * the town is authoritative and every member's mirror is corrected to match.
+     */
+    static void syncRanks(Map<UUID, TownPlayerData> players) {
+        for (Town town : TOWNS.values()) {
+            for (UUID member : town.getCitizens()) {
+                TownPlayerData d = players.get(member);
+                if (d != null && d.getRank() == TownRank.OFFICER) {
+                    town.setOfficer(member, true); // no-op once migrated
+                }
+            }
+            for (UUID member : town.getCitizens()) {
+                TownPlayerData d = players.get(member);
+                TownRank rank = town.getRank(member);
+                if (d != null && d.getRank() != rank) d.setRank(rank);
+            }
         }
     }
 
@@ -56,12 +356,7 @@ public class TownManager {
     }
 
     public static Town getTownByClaim(String dimension, int x, int z) {
-        ClaimPos pos = new ClaimPos(dimension, x, z);
-        for (Town t : TOWNS.values()) {
-            if (t.getClaims().contains(pos))
-                return t;
-        }
-        return null;
+        return ClaimIndex.get(dimension, x, z);
     }
 
     public static boolean isChunkClaimed(String dimension, int x, int z) {
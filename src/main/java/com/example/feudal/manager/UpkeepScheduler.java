@@ -0,0 +1,333 @@
+package com.example.feudal.manager;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.TownStorage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Periodic upkeep: claim upkeep (TownManager.getClaimLimit decides which claims cost the
+ * over-limit rate) plus a tax per citizen, taken from each town's bank through BankManager.
+ *
+ * A cycle does not charge every town in one tick. It walks the towns in UUID order,
+ * at most UPKEEP_TOWNS_PER_TICK per tick and stopping early once the tick's time budget
+ * is spent, so a server with thousands of towns spreads a cycle over a few seconds.
+ *
+ * The cycle state (start time, cursor = last town handled, totals) is saved to
+ * upkeep.dat beside the ledger (TownStorage.getBankDir, i.e. with the town data: the
+ * world folder for WORLD storage), and a restart resumes after the cursor. Whether a town was already
+ * charged in the current cycle is checked against the ledger (BankManager.getLastUpkeep),
+ * so a cursor that is older than the ledger after a crash never charges a town twice.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Call load() after BankManager.load(), tick() every server tick and shutdown()
+ *    before BankManager.shutdown()
+ *  - Pauses while the bank is unavailable; a town is only passed once it was charged
+ */
+public final class UpkeepScheduler {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-Upkeep");
+
+    private static final int MAGIC = 0x4644554B; // "FDUK"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SAVE_INTERVAL_TICKS = 20;
+
+    // Persisted
+    private static long nextCycleAt;     // epoch ms
+    private static long cycleStartedAt;  // epoch ms, 0 while no cycle runs
+    private static UUID cursor;          // last town handled in the running cycle, or null
+    private static int cycle;
+    private static int charged;
+    private static int shortTowns;       // towns that could not pay in full
+    private static long collected;
+    private static long shortfall;
+
+    // Runtime: towns of the running cycle in UUID order, and the next index to handle
+    private static UUID[] order;
+    private static int position;
+    private static int ticksSinceSave;
+    private static boolean loaded = false; // never save defaults over a state that was not read
+
+    private UpkeepScheduler() {
+    }
+
+    // ========================================================================
+    // LIFECYCLE
+    // ========================================================================
+
+    public static void load() {
+        order = null;
+        cursor = null;
+        cycleStartedAt = 0L;
+        cycle = 0;
+        resetTotals();
+        nextCycleAt = System.currentTimeMillis() + intervalMillis();
+
+        Path file = stateFile();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) throw new IOException(file + " is not a Feudalism upkeep file");
+                int version = in.readInt();
+                if (version > FORMAT_VERSION) {
+                    throw new IOException(file + " was written by a newer version (format " + version + ")");
+                }
+                nextCycleAt = in.readLong();
+                cycleStartedAt = in.readLong();
+                cursor = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                cycle = in.readInt();
+                charged = in.readInt();
+                shortTowns = in.readInt();
+                collected = in.readLong();
+                shortfall = in.readLong();
+            } catch (IOException e) {
+                LOGGER.error("Failed to read {}; the next upkeep cycle starts in one interval.", file, e);
+                cycleStartedAt = 0L;
+                cursor = null;
+                nextCycleAt = System.currentTimeMillis() + intervalMillis();
+            }
+        }
+
+        if (cycleStartedAt != 0L) {
+            order = sortedTownIds();
+            position = cursor == null ? 0 : firstAfter(order, cursor);
+            LOGGER.info("Resuming upkeep cycle {} at town {} of {}.", cycle, position, order.length);
+        }
+        ticksSinceSave = 0;
+        loaded = true;
+    }
+
+    public static void shutdown() {
+        if (!loaded) return;
+        save();
+        loaded = false;
+    }
+
+    // ========================================================================
+    // TICK
+    // ========================================================================
+
+    public static void tick() {
+        if (!loaded || !FeudalConfig.UPKEEP_ENABLED.get() || !BankManager.isAvailable()) return;
+
+        if (order == null) {
+            long now = System.currentTimeMillis();
+            if (now < nextCycleAt) return;
+            startCycle(now);
+        }
+
+        long deadline = System.nanoTime() + FeudalConfig.UPKEEP_TICK_BUDGET_MICROS.get() * 1000L;
+        int limit = FeudalConfig.UPKEEP_TOWNS_PER_TICK.get();
+        int done = 0;
+        while (position < order.length && done < limit && (done == 0 || System.nanoTime() < deadline)) {
+            Town town = TownManager.getTown(order[position]);
+            if (town != null && BankManager.getLastUpkeep(town) < cycleStartedAt && !charge(town)) {
+                break; // bank went unavailable; retry this town later
+            }
+            cursor = order[position++];
+            done++;
+        }
+
+        if (position >= order.length) {
+            finishCycle();
+        } else if (++ticksSinceSave >= SAVE_INTERVAL_TICKS) {
+            save();
+        }
+    }
+
+    /**
+     * Starts a cycle on the next tick, unless one is running.
+     *
+     * @return false if a cycle is already running
+     */
+    public static boolean runNow() {
+        if (!loaded || order != null) return false;
+        nextCycleAt = 0L;
+        return true;
+    }
+
+    // ========================================================================
+    // UPKEEP
+    // ========================================================================
+
+    /**
+     * @return gold the town owes per cycle
+     */
+    public static long getUpkeepDue(Town town) {
+        int claims = town.getClaims().size();
+        int over = Math.max(0, claims - TownManager.getClaimLimit(town));
+        return (long) (claims - over) * FeudalConfig.UPKEEP_PER_CLAIM.get()
+                + (long) over * FeudalConfig.UPKEEP_PER_CLAIM_OVER_LIMIT.get()
+                + (long) town.getCitizens().size() * FeudalConfig.UPKEEP_PER_CITIZEN.get();
+    }
+
+    /**
+     * @return false if the bank could not record the charge
+     */
+    private static boolean charge(Town town) {
+        long due = getUpkeepDue(town);
+        long taken = BankManager.chargeUpkeep(town, due);
+        if (taken < 0L) return false;
+
+        charged++;
+        collected += taken;
+        if (taken < due) {
+            shortTowns++;
+            shortfall += due - taken;
+        }
+        return true;
+    }
+
+    private static void startCycle(long now) {
+        cycle++;
+        cycleStartedAt = now;
+        cursor = null;
+        resetTotals();
+        order = sortedTownIds();
+        position = 0;
+        LOGGER.info("Upkeep cycle {} started for {} towns.", cycle, order.length);
+        save();
+    }
+
+    private static void finishCycle() {
+        LOGGER.info("Upkeep cycle {} done: {} towns charged, {} gold collected, {} towns short by {} gold in total.",
+                cycle, charged, collected, shortTowns, shortfall);
+        // Keep the cadence, but never queue up cycles missed while the server was down
+        nextCycleAt = Math.max(cycleStartedAt + intervalMillis(), System.currentTimeMillis() + 1L);
+        cycleStartedAt = 0L;
+        cursor = null;
+        order = null;
+        save();
+    }
+
+    private static void resetTotals() {
+        charged = 0;
+        shortTowns = 0;
+        collected = 0L;
+        shortfall = 0L;
+    }
+
+    private static long intervalMillis() {
+        return FeudalConfig.UPKEEP_INTERVAL_MINUTES.get() * 60_000L;
+    }
+
+    private static UUID[] sortedTownIds() {
+        UUID[] ids = TownManager.getTownMap().keySet().toArray(new UUID[0]);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * @return index of the first id greater than cursor (the cursor's town may be gone)
+     */
+    private static int firstAfter(UUID[] ids, UUID cursor) {
+        int index = Arrays.binarySearch(ids, cursor);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    // ========================================================================
+    // PROGRESS
+    // ========================================================================
+
+    public static boolean isRunning() {
+        return order != null;
+    }
+
+    public static int getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return towns handled in the running cycle
+     */
+    public static int getPosition() {
+        return order == null ? 0 : position;
+    }
+
+    /**
+     * @return towns in the running cycle
+     */
+    public static int getTotal() {
+        return order == null ? 0 : order.length;
+    }
+
+    public static int getCharged() {
+        return charged;
+    }
+
+    public static long getCollected() {
+        return collected;
+    }
+
+    public static int getShortTowns() {
+        return shortTowns;
+    }
+
+    public static long getShortfall() {
+        return shortfall;
+    }
+
+    /**
+     * @return epoch ms the next cycle starts at (meaningless while one runs)
+     */
+    public static long getNextCycleAt() {
+        return nextCycleAt;
+    }
+
+    // ========================================================================
+    // STATE FILE
+    // ========================================================================
+
+    // Same directory as the ledger, so a restored world brings back a matching cycle state.
+    // TownStorage moves it with the ledger when the storage mode changes; keep the names in sync.
+    private static Path stateFile() {
+        return TownStorage.getBankDir().resolve("upkeep.dat");
+    }
+
+    /**
+     * Captures the state now and writes it on the storage thread.
+     */
+    private static void save() {
+        ticksSinceSave = 0;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(80);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(nextCycleAt);
+            out.writeLong(cycleStartedAt);
+            out.writeBoolean(cursor != null);
+            if (cursor != null) {
+                out.writeLong(cursor.getMostSignificantBits());
+                out.writeLong(cursor.getLeastSignificantBits());
+            }
+            out.writeInt(cycle);
+            out.writeInt(charged);
+            out.writeInt(shortTowns);
+            out.writeLong(collected);
+            out.writeLong(shortfall);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+
+        byte[] data = bytes.toByteArray();
+        Path file = stateFile();
+        TownStorage.submitWrite(() -> {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, data);
+            TownStorage.moveAtomically(temp, file);
+        });
+    }
+}
@@ -1,8 +1,299 @@
 package com.example.feudal.manager;
 
-public class VassalManager {
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-    public void addVassal(String lord, String vassal) {
-        // TODO: implement
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Lord / vassal hierarchy between towns (kingdom -> duchy -> town ...).
+ *
+ * The links form a forest: every town has at most one liege, and addVassal rejects any
+ * link that would close a cycle. Each town in a hierarchy caches its depth and its top
+ * liege, so the hot-path queries are cheap:
+ *  - getTopLiege / sameRealm: O(1)
+ *  - isAbove: O(1) rejection across realms or by depth, otherwise a walk of at most
+ *    the depth difference
+ * Changing a link only refreshes the moved town's own subtree.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - The link is persisted as Town.liege; load() rebuilds the forest after
+ *    TownStorage.loadAll() and drops links to missing towns or closing cycles
+ *  - Call townRemoved() when a town is disbanded
+ */
+public final class VassalManager {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-Vassals");
+
+    public enum Result {
+        SWORN,
+        NO_SUCH_TOWN,
+        SAME_TOWN,
+        ALREADY_VASSAL,
+        WOULD_CYCLE,
+        TOO_DEEP
+    }
+
+    private static final class Node {
+        final UUID id;
+        Node liege;
+        final List<Node> vassals = new ArrayList<>(0);
+        Node root = this;  // cached top liege
+        int depth;         // cached, 0 for a top liege
+
+        Node(UUID id) {
+            this.id = id;
+        }
+    }
+
+    // Only towns that have a liege or vassals; everyone else is an independent root
+    private static final Map<UUID, Node> NODES = new HashMap<>();
+
+    private VassalManager() {
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    /**
+     * Rebuilds the hierarchy from Town.getLiege(). Call after TownStorage.loadAll().
+     */
+    public static void load() {
+        NODES.clear();
+        Map<UUID, Town> towns = TownManager.getTownMap();
+
+        for (Town town : towns.values()) {
+            UUID liege = town.getLiege();
+            if (liege == null) continue;
+            if (!towns.containsKey(liege) || liege.equals(town.getId())) {
+                LOGGER.warn("Town {} had an invalid liege {}; it is independent now.", town.getName(), liege);
+                town.setLiege(null);
+                continue;
+            }
+            Node vassal = node(town.getId());
+            Node lord = node(liege);
+            vassal.liege = lord;
+            lord.vassals.add(vassal);
+        }
+
+        // Break cycles (only possible in hand-edited data): walk up from every node
+        Set<Node> done = new HashSet<>();
+        for (Node start : new ArrayList<>(NODES.values())) {
+            Set<Node> path = new HashSet<>();
+            Node current = start;
+            while (current != null && !done.contains(current)) {
+                if (!path.add(current)) {
+                    LOGGER.warn("Vassal cycle at town {}; its liege link was dropped.", current.id);
+                    unlink(current);
+                    towns.get(current.id).setLiege(null);
+                    break;
+                }
+                current = current.liege;
+            }
+            done.addAll(path);
+        }
+
+        for (Node node : NODES.values()) {
+            if (node.liege == null) refresh(node);
+        }
+    }
+
+    // ========================================================================
+    // CHANGES
+    // ========================================================================
+
+    /**
+     * Makes vassal a direct vassal of lord.
+     */
+    public static Result addVassal(Town lord, Town vassal) {
+        if (lord.getId().equals(vassal.getId())) return Result.SAME_TOWN;
+        if (vassal.getLiege() != null) return Result.ALREADY_VASSAL;
+        if (isAbove(vassal.getId(), lord.getId())) return Result.WOULD_CYCLE;
+        if (getDepth(lord.getId()) + 1 + height(NODES.get(vassal.getId())) > FeudalConfig.MAX_VASSAL_DEPTH.get()) {
+            return Result.TOO_DEEP;
+        }
+
+        Node lordNode = node(lord.getId());
+        Node vassalNode = node(vassal.getId());
+        vassalNode.liege = lordNode;
+        lordNode.vassals.add(vassalNode);
+        refresh(vassalNode);
+        vassal.setLiege(lord.getId());
+        return Result.SWORN;
+    }
+
+    public static Result addVassal(String lord, String vassal) {
+        Town lordTown = TownManager.getTownByName(lord);
+        Town vassalTown = TownManager.getTownByName(vassal);
+        if (lordTown == null || vassalTown == null) return Result.NO_SUCH_TOWN;
+        return addVassal(lordTown, vassalTown);
+    }
+
+    /**
+     * Frees a vassal from its liege; its own vassals stay with it.
+     *
+     * @return false if it had no liege
+     */
+    public static boolean release(Town vassal) {
+        Node node = NODES.get(vassal.getId());
+        if (node == null || node.liege == null) return false;
+
+        Node lord = node.liege;
+        unlink(node);
+        refresh(node);
+        prune(node);
+        prune(lord);
+        vassal.setLiege(null);
+        return true;
+    }
+
+    /**
+     * Drops a disbanded town from the hierarchy. Its direct vassals become independent.
+     */
+    public static void townRemoved(UUID id) {
+        Node node = NODES.remove(id);
+        if (node == null) return;
+
+        if (node.liege != null) {
+            Node lord = node.liege;
+            unlink(node);
+            prune(lord);
+        }
+        for (Node vassal : node.vassals) {
+            vassal.liege = null;
+            refresh(vassal);
+            prune(vassal);
+            Town town = TownManager.getTown(vassal.id);
+            if (town != null) town.setLiege(null);
+        }
+        node.vassals.clear();
+    }
+
+    // ========================================================================
+    // QUERIES
+    // ========================================================================
+
+    /**
+     * True if a is a (direct or indirect) liege of b. A town is not above itself.
+     */
+    public static boolean isAbove(UUID a, UUID b) {
+        Node upper = NODES.get(a);
+        Node lower = NODES.get(b);
+        if (upper == null || lower == null) return false;
+        if (upper.root != lower.root || upper.depth >= lower.depth) return false;
+
+        Node current = lower;
+        for (int steps = lower.depth - upper.depth; steps > 0; steps--) {
+            current = current.liege;
+        }
+        return current == upper;
+    }
+
+    /**
+     * @return the town at the top of b's hierarchy; b itself if it has no liege
+     */
+    public static UUID getTopLiege(UUID b) {
+        Node node = NODES.get(b);
+        return node == null ? b : node.root.id;
+    }
+
+    /**
+     * True if both towns answer to the same top liege (or one is the other's).
+     */
+    public static boolean sameRealm(UUID a, UUID b) {
+        return getTopLiege(a).equals(getTopLiege(b));
+    }
+
+    /**
+     * @return levels below the top liege, 0 for an independent town
+     */
+    public static int getDepth(UUID town) {
+        Node node = NODES.get(town);
+        return node == null ? 0 : node.depth;
+    }
+
+    public static List<UUID> getVassals(UUID lord) {
+        Node node = NODES.get(lord);
+        if (node == null) return Collections.emptyList();
+        List<UUID> out = new ArrayList<>(node.vassals.size());
+        for (Node vassal : node.vassals) out.add(vassal.id);
+        return out;
+    }
+
+    /**
+     * @return every town below the lord, nearest levels first
+     */
+    public static List<UUID> getAllVassals(UUID lord) {
+        Node node = NODES.get(lord);
+        if (node == null) return Collections.emptyList();
+        List<UUID> out = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>(node.vassals);
+        while (!queue.isEmpty()) {
+            Node current = queue.pollFirst();
+            out.add(current.id);
+            queue.addAll(current.vassals);
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static Node node(UUID id) {
+        return NODES.computeIfAbsent(id, Node::new);
+    }
+
+    private static void unlink(Node node) {
+        node.liege.vassals.remove(node);
+        node.liege = null;
+    }
+
+    /**
+     * Drops a node that no longer takes part in any hierarchy.
+     */
+    private static void prune(Node node) {
+        if (node.liege == null && node.vassals.isEmpty()) NODES.remove(node.id);
+    }
+
+    /**
+     * Recomputes the cached root and depth of a node and everything below it.
+     */
+    private static void refresh(Node top) {
+        top.root = top.liege == null ? top : top.liege.root;
+        top.depth = top.liege == null ? 0 : top.liege.depth + 1;
+
+        ArrayDeque<Node> queue = new ArrayDeque<>(top.vassals);
+        while (!queue.isEmpty()) {
+            Node current = queue.pollFirst();
+            current.root = top.root;
+            current.depth = current.liege.depth + 1;
+            queue.addAll(current.vassals);
+        }
+    }
+
+    /**
+     * @return levels below the node (0 for a node without vassals or no node)
+     */
+    private static int height(Node node) {
+        if (node == null) return 0;
+        int height = 0;
+        for (Node vassal : node.vassals) {
+            height = Math.max(height, 1 + height(vassal));
+        }
+        return height;
     }
 }
@@ -1,8 +1,419 @@
 package com.example.feudal.manager;
 
-public class WarManager {
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.protection.ProtectionManager;
+import com.example.feudal.town.ClaimDimensions;
+import com.example.feudal.town.ClaimIndex;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.WarState;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-    public void declareWar(String attacker, String defender) {
-        // TODO: implement
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Wars between towns: declaration, warmup, capture of contested chunks and scoring.
+ *
+ * A war starts in WARMUP; when that runs out the fighting begins. While ACTIVE, an
+ * attacker standing in one of the defender's chunks opens a "front" there (up to
+ * MAX_CONTESTED_CHUNKS per war). A front gains progress while attackers outnumber
+ * defenders in the chunk and loses it otherwise; at WAR_CAPTURE_SECONDS the chunk is
+ * transferred to the attacker (+1 attacker score). Defenders who push a front back
+ * after it got halfway score +1. The war ends when its time is up, a side reaches
+ * WAR_SCORE_TO_WIN, the defender has no land left, or either town is gone.
+ *
+ * Work is spread by a TickBudgetScheduler: each war and each open front is one task
+ * that runs about once a second, in its own tick bucket, and all of them together stay
+ * within WAR_TICK_BUDGET_MICROS per tick. Peaceful towns and quiet land cost nothing.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - The state lives in WarState on the attacking Town and is saved with it;
+ *    load() rebuilds the runtime side after TownStorage.loadAll()
+ */
+public final class WarManager {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-War");
+
+    private static final int PERIOD = 20; // every war and front runs about once a second
+
+    public enum DeclareResult {
+        DECLARED,
+        DISABLED,
+        NO_SUCH_TOWN,
+        SAME_TOWN,
+        SAME_REALM,
+        ALREADY_AT_WAR,
+        TOO_MANY_WARS,
+        NO_CLAIMS
+    }
+
+    /**
+     * One running war.
+     */
+    public static final class War {
+        private final UUID attacker;
+        private final WarState state;
+        private final Map<ClaimPos, Front> fronts = new HashMap<>();
+        private TickBudgetScheduler.Entry task;
+        private boolean over;
+
+        private War(UUID attacker, WarState state) {
+            this.attacker = attacker;
+            this.state = state;
+        }
+
+        public UUID getAttacker() {
+            return attacker;
+        }
+
+        public UUID getDefender() {
+            return state.getDefender();
+        }
+
+        public WarState getState() {
+            return state;
+        }
+    }
+
+    /**
+     * Runtime side of a contested chunk. Head counts are refreshed by the war's scan.
+     */
+    private static final class Front {
+        final WarState.Contest contest;
+        final int dimensionId;
+        final long chunkKey;
+        int attackers;
+        int defenders;
+        int peak; // highest progress reached, for defender scoring
+
+        Front(WarState.Contest contest) {
+            this.contest = contest;
+            this.dimensionId = ClaimDimensions.intern(contest.getDimension());
+            this.chunkKey = ClaimPos.chunkKey(contest.getChunkX(), contest.getChunkZ());
+            this.peak = contest.getProgress();
+        }
+    }
+
+    private static final TickBudgetScheduler SCHEDULER = new TickBudgetScheduler(PERIOD);
+    private static final Map<UUID, List<War>> BY_TOWN = new HashMap<>(); // both sides
+
+    private static MinecraftServer server;
+
+    private WarManager() {
+    }
+
+    // ========================================================================
+    // LIFECYCLE
+    // ========================================================================
+
+    /**
+     * Rebuilds running wars from the loaded towns. Call after TownStorage.loadAll().
+     */
+    public static void load(MinecraftServer currentServer) {
+        server = currentServer;
+        SCHEDULER.clear();
+        BY_TOWN.clear();
+
+        int wars = 0;
+        for (Town town : TownManager.getTownMap().values()) {
+            for (WarState state : town.getWars()) {
+                start(new War(town.getId(), state));
+                wars++;
+            }
+        }
+        if (wars > 0) LOGGER.info("Resumed {} wars.", wars);
+    }
+
+    /**
+     * Called every server tick.
+     */
+    public static void tick() {
+        if (SCHEDULER.size() == 0) return;
+        SCHEDULER.tick(FeudalConfig.WAR_TICK_BUDGET_MICROS.get() * 1000L);
+    }
+
+    // ========================================================================
+    // DECLARATION / QUERIES
+    // ========================================================================
+
+    public static DeclareResult declareWar(String attacker, String defender) {
+        Town attackerTown = TownManager.getTownByName(attacker);
+        Town defenderTown = TownManager.getTownByName(defender);
+        if (attackerTown == null || defenderTown == null) return DeclareResult.NO_SUCH_TOWN;
+        return declareWar(attackerTown, defenderTown);
+    }
+
+    public static DeclareResult declareWar(Town attacker, Town defender) {
+        if (!FeudalConfig.WAR_ENABLED.get()) return DeclareResult.DISABLED;
+        if (attacker.getId().equals(defender.getId())) return DeclareResult.SAME_TOWN;
+        if (VassalManager.sameRealm(attacker.getId(), defender.getId())) return DeclareResult.SAME_REALM;
+        if (isAtWar(attacker.getId(), defender.getId())) return DeclareResult.ALREADY_AT_WAR;
+        int max = FeudalConfig.MAX_WARS_PER_TOWN.get();
+        if (getWars(attacker.getId()).size() >= max || getWars(defender.getId()).size() >= max) {
+            return DeclareResult.TOO_MANY_WARS;
+        }
+        if (defender.getClaims().size() == 0) return DeclareResult.NO_CLAIMS;
+
+        WarState state = new WarState(defender.getId(), FeudalConfig.WAR_WARMUP_SECONDS.get() * 20);
+        attacker.getWars().add(state);
+        attacker.markDirty();
+        start(new War(attacker.getId(), state));
+
+        int warmupSeconds = FeudalConfig.WAR_WARMUP_SECONDS.get();
+        String warmup = warmupSeconds < 120 ? warmupSeconds + " seconds" : (warmupSeconds / 60) + " minutes";
+        notifyTown(attacker, "Your town declared war on " + defender.getName() + ". Fighting starts in " + warmup + ".");
+        notifyTown(defender, attacker.getName() + " declared war on your town! Fighting starts in " + warmup + ".");
+        return DeclareResult.DECLARED;
+    }
+
+    /**
+     * @return wars the town fights in, attacking or defending
+     */
+    public static List<War> getWars(UUID town) {
+        List<War> wars = BY_TOWN.get(town);
+        return wars == null ? Collections.emptyList() : Collections.unmodifiableList(wars);
+    }
+
+    public static boolean isAtWar(UUID a, UUID b) {
+        for (War war : getWars(a)) {
+            if (war.attacker.equals(b) || war.getDefender().equals(b)) return true;
+        }
+        return false;
+    }
+
+    // ========================================================================
+    // WAR TASK
+    // ========================================================================
+
+    private static void start(War war) {
+        index(war.attacker, war);
+        index(war.getDefender(), war);
+        war.task = SCHEDULER.schedule(elapsed -> runWar(war, elapsed));
+        for (WarState.Contest contest : war.state.getContested()) {
+            openFront(war, new Front(contest));
+        }
+    }
+
+    private static boolean runWar(War war, int elapsed) {
+        if (war.over) return false;
+        Town attacker = TownManager.getTown(war.attacker);
+        Town defender = TownManager.getTown(war.getDefender());
+        if (attacker == null || defender == null) {
+            end(war, attacker, defender, attacker == null ? defender : attacker, "the other town no longer exists");
+            return false;
+        }
+
+        WarState state = war.state;
+        int left = state.getTicksLeft() - elapsed;
+
+        if (state.getPhase() == WarState.Phase.WARMUP) {
+            if (left > 0) {
+                state.setTicksLeft(left);
+            } else {
+                state.setPhase(WarState.Phase.ACTIVE);
+                state.setTicksLeft(FeudalConfig.WAR_DURATION_MINUTES.get() * 60 * 20 + left);
+                notifyTown(attacker, "The war against " + defender.getName() + " has begun. Stand in their land to contest it!");
+                notifyTown(defender, "The war against " + attacker.getName() + " has begun. Defend your land!");
+            }
+            attacker.markDirty();
+            return true;
+        }
+
+        int toWin = FeudalConfig.WAR_SCORE_TO_WIN.get();
+        if (state.getAttackerScore() >= toWin || state.getDefenderScore() >= toWin) {
+            finish(war, attacker, defender, "score limit reached");
+            return false;
+        }
+        if (defender.getClaims().size() == 0) {
+            end(war, attacker, defender, attacker, defender.getName() + " has no land left");
+            return false;
+        }
+        if (left <= 0) {
+            finish(war, attacker, defender, "time is up");
+            return false;
+        }
+
+        state.setTicksLeft(left);
+        scan(war, attacker, defender);
+        attacker.markDirty();
+        return true;
+    }
+
+    /**
+     * Counts online attackers and defenders per contested chunk, and opens fronts where
+     * attackers stand in the defender's land. Costs the two towns' member counts.
+     */
+    private static void scan(War war, Town attacker, Town defender) {
+        for (Front front : war.fronts.values()) {
+            front.attackers = 0;
+            front.defenders = 0;
+        }
+
+        int maxFronts = FeudalConfig.MAX_CONTESTED_CHUNKS.get();
+        for (UUID member : attacker.getCitizens()) {
+            ServerPlayer player = server.getPlayerList().getPlayer(member);
+            if (player == null || player.isSpectator()) continue;
+
+            int dimensionId = ProtectionManager.dimensionId(player.level());
+            long chunkKey = ClaimPos.chunkKey(player.getBlockX() >> 4, player.getBlockZ() >> 4);
+            if (ClaimIndex.get(dimensionId, chunkKey) != defender) continue;
+
+            Front front = war.fronts.get(new ClaimPos(dimensionId, chunkKey));
+            if (front == null) {
+                if (war.fronts.size() >= maxFronts) continue;
+                WarState.Contest contest = new WarState.Contest(ClaimDimensions.name(dimensionId),
+                        ClaimPos.chunkX(chunkKey), ClaimPos.chunkZ(chunkKey));
+                war.state.getContested().add(contest);
+                front = new Front(contest);
+                openFront(war, front);
+                notifyTown(defender, attacker.getName() + " is contesting your chunk at "
+                        + (contest.getChunkX() * 16) + ", " + (contest.getChunkZ() * 16) + "!");
+            }
+            front.attackers++;
+        }
+
+        if (war.fronts.isEmpty()) return;
+        for (UUID member : defender.getCitizens()) {
+            ServerPlayer player = server.getPlayerList().getPlayer(member);
+            if (player == null || player.isSpectator()) continue;
+
+            int dimensionId = ProtectionManager.dimensionId(player.level());
+            long chunkKey = ClaimPos.chunkKey(player.getBlockX() >> 4, player.getBlockZ() >> 4);
+            Front front = war.fronts.get(new ClaimPos(dimensionId, chunkKey));
+            if (front != null) front.defenders++;
+        }
+    }
+
+    // ========================================================================
+    // FRONT TASK
+    // ========================================================================
+
+    private static void openFront(War war, Front front) {
+        war.fronts.put(new ClaimPos(front.dimensionId, front.chunkKey), front);
+        SCHEDULER.schedule(elapsed -> runFront(war, front, elapsed));
+    }
+
+    private static boolean runFront(War war, Front front, int elapsed) {
+        if (war.over) return false;
+        Town attacker = TownManager.getTown(war.attacker);
+        Town defender = TownManager.getTown(war.getDefender());
+        if (attacker == null || defender == null) return false; // the war task ends it
+
+        if (ClaimIndex.get(front.dimensionId, front.chunkKey) != defender) {
+            closeFront(war, front, attacker); // unclaimed or changed hands meanwhile
+            return false;
+        }
+
+        int progress = front.contest.getProgress();
+        if (front.attackers > front.defenders) {
+            progress += elapsed;
+        } else if (front.defenders > front.attackers || front.attackers == 0) {
+            progress -= elapsed;
+        }
+
+        int captureTicks = FeudalConfig.WAR_CAPTURE_SECONDS.get() * 20;
+        if (progress >= captureTicks) {
+            closeFront(war, front, attacker);
+            defender.removeClaim(front.dimensionId, front.chunkKey);
+            attacker.addClaim(front.dimensionId, front.chunkKey);
+            war.state.setAttackerScore(war.state.getAttackerScore() + 1);
+            String where = (front.contest.getChunkX() * 16) + ", " + (front.contest.getChunkZ() * 16);
+            notifyTown(attacker, "Captured the chunk at " + where + " from " + defender.getName() + ".");
+            notifyTown(defender, attacker.getName() + " captured your chunk at " + where + ".");
+            return false;
+        }
+
+        if (progress <= 0 && front.attackers == 0) {
+            closeFront(war, front, attacker);
+            if (front.defenders > 0 && front.peak * 2 >= captureTicks) {
+                war.state.setDefenderScore(war.state.getDefenderScore() + 1);
+                notifyTown(defender, "Your town held the chunk at "
+                        + (front.contest.getChunkX() * 16) + ", " + (front.contest.getChunkZ() * 16) + ".");
+            }
+            return false;
+        }
+
+        front.contest.setProgress(Math.max(0, progress));
+        front.peak = Math.max(front.peak, progress);
+        attacker.markDirty();
+        return true;
+    }
+
+    private static void closeFront(War war, Front front, Town attacker) {
+        war.fronts.remove(new ClaimPos(front.dimensionId, front.chunkKey));
+        war.state.getContested().remove(front.contest);
+        attacker.markDirty();
+    }
+
+    // ========================================================================
+    // ENDING
+    // ========================================================================
+
+    private static void finish(War war, Town attacker, Town defender, String reason) {
+        int attackerScore = war.state.getAttackerScore();
+        int defenderScore = war.state.getDefenderScore();
+        Town winner = attackerScore > defenderScore ? attacker : defenderScore > attackerScore ? defender : null;
+        end(war, attacker, defender, winner, reason);
+    }
+
+    /**
+     * @param winner null for a draw
+     */
+    private static void end(War war, Town attacker, Town defender, Town winner, String reason) {
+        war.over = true;
+        war.task.cancel();
+        war.fronts.clear();
+        unindex(war.attacker, war);
+        unindex(war.getDefender(), war);
+
+        if (attacker != null) {
+            attacker.getWars().remove(war.state);
+            attacker.markDirty();
+        }
+
+        String score = war.state.getAttackerScore() + " - " + war.state.getDefenderScore();
+        String result = winner == null ? "ended in a draw" : "was won by " + winner.getName();
+        for (Town town : new Town[]{attacker, defender}) {
+            if (town == null) continue;
+            Town enemy = town == attacker ? defender : attacker;
+            String against = enemy == null ? "" : " against " + enemy.getName();
+            notifyTown(town, "The war" + against + " " + result + " (" + reason + ", score " + score + ").");
+        }
+        LOGGER.info("War {} vs {} {} ({}, score {}).", war.attacker, war.getDefender(), result, reason, score);
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static void index(UUID town, War war) {
+        BY_TOWN.computeIfAbsent(town, id -> new ArrayList<>(2)).add(war);
+    }
+
+    private static void unindex(UUID town, War war) {
+        List<War> wars = BY_TOWN.get(town);
+        if (wars == null) return;
+        wars.remove(war);
+        if (wars.isEmpty()) BY_TOWN.remove(town);
+    }
+
+    private static void notifyTown(Town town, String message) {
+        if (server == null) return;
+        Component text = Component.literal("[War] " + message);
+        for (UUID member : town.getCitizens()) {
+            ServerPlayer player = server.getPlayerList().getPlayer(member);
+            if (player != null) player.sendSystemMessage(text);
+        }
     }
 }
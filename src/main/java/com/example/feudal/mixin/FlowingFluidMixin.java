@@ -0,0 +1,40 @@
+package com.example.feudal.mixin;
+
+import com.example.feudal.protection.ProtectionManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Keeps water and lava from flowing into a claim from outside it.
+ *
+ * canSpreadTo is asked for every block a fluid is about to spread into, sideways and down,
+ * so vetoing it stops the flow before the target block changes. NeoForge fires no event
+ * for ordinary spreading.
+ *
+ * IMPORTANT:
+ *  - The decision is ProtectionManager.canFluidSpread; keep this class a thin adapter
+ *  - Only real levels are checked (spread previews on other BlockGetters pass through)
+ */
+@Mixin(FlowingFluid.class)
+public abstract class FlowingFluidMixin {
+
+    @Inject(method = "canSpreadTo", at = @At("HEAD"), cancellable = true)
+    private void feudalism$keepOutOfClaims(BlockGetter getter, BlockPos fromPos, BlockState fromState, Direction direction,
+                                           BlockPos toPos, BlockState toState, FluidState toFluidState, Fluid fluid,
+                                           CallbackInfoReturnable<Boolean> cir) {
+        if (getter instanceof Level level && !level.isClientSide()
+                && !ProtectionManager.canFluidSpread(level, fromPos, toPos)) {
+            cir.setReturnValue(false);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.feudal.protection;
+
+import com.example.feudal.town.ClaimIndex;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.piston.PistonStructureResolver;
+
+import java.util.List;
+
+/**
+ * Protection checks for events that touch many blocks at once (explosions, pistons).
+ *
+ * Blocks are grouped by chunk before anything is resolved: each distinct chunk costs
+ * one ClaimIndex lookup, however many of its blocks are affected. Consecutive blocks
+ * in the same chunk skip even the per-event chunk map.
+ *
+ * IMPORTANT:
+ *  - Server thread only (the scratch map is shared)
+ *  - Nothing is allocated per event once the scratch map has grown to its working size
+ */
+public final class AreaProtection {
+
+    private static final byte UNKNOWN = -1;
+    private static final byte ALLOWED = 0;
+    private static final byte BLOCKED = 1;
+
+    // chunk key -> ALLOWED / BLOCKED for the event being processed, cleared per event
+    private static final Long2ByteOpenHashMap CHUNK_STATE = new Long2ByteOpenHashMap();
+
+    // Last chunk resolved, so runs of blocks in one chunk skip the map entirely
+    private static long lastKey;
+    private static boolean lastBlocked;
+    private static boolean hasLast;
+
+    static {
+        CHUNK_STATE.defaultReturnValue(UNKNOWN);
+    }
+
+    private AreaProtection() {
+    }
+
+    /**
+     * Removes every position inside a claimed chunk from the list, in place.
+     * Kept positions stay in their original order.
+     *
+     * @return the number of positions removed
+     */
+    public static int filterClaimed(int dimensionId, List<BlockPos> positions) {
+        int size = positions.size();
+        if (size == 0 || !ClaimIndex.hasClaims(dimensionId)) return 0;
+
+        begin();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            BlockPos pos = positions.get(i);
+            if (!blocked(dimensionId, pos.getX(), pos.getZ(), null)) {
+                if (kept != i) positions.set(kept, pos);
+                kept++;
+            }
+        }
+
+        // Drop the leftovers from the tail, which never shifts elements
+        for (int i = size - 1; i >= kept; i--) {
+            positions.remove(i);
+        }
+        return size - kept;
+    }
+
+    /**
+     * True if the piston would move or break a block across a claim border, i.e. any
+     * touched chunk belongs to someone other than the owner of the piston's chunk.
+     * A retracting non-sticky piston moves nothing; callers skip this check for it.
+     *
+     * @param resolver      already resolved structure of the move
+     * @param pushDirection direction the blocks travel in
+     * @param head          position of the piston head when extending, otherwise null
+     */
+    public static boolean pistonCrossesClaim(int dimensionId, BlockPos piston, PistonStructureResolver resolver,
+                                             Direction pushDirection, BlockPos head) {
+        if (!ClaimIndex.hasClaims(dimensionId)) return false;
+
+        Town owner = ClaimIndex.get(dimensionId, ClaimPos.chunkKey(piston.getX() >> 4, piston.getZ() >> 4));
+        int dx = pushDirection.getStepX();
+        int dz = pushDirection.getStepZ();
+
+        begin();
+        if (head != null && blocked(dimensionId, head.getX(), head.getZ(), owner)) return true;
+
+        List<BlockPos> toPush = resolver.getToPush();
+        for (int i = 0, n = toPush.size(); i < n; i++) {
+            BlockPos pos = toPush.get(i);
+            if (blocked(dimensionId, pos.getX(), pos.getZ(), owner)) return true;
+            if (blocked(dimensionId, pos.getX() + dx, pos.getZ() + dz, owner)) return true;
+        }
+
+        List<BlockPos> toDestroy = resolver.getToDestroy();
+        for (int i = 0, n = toDestroy.size(); i < n; i++) {
+            BlockPos pos = toDestroy.get(i);
+            if (blocked(dimensionId, pos.getX(), pos.getZ(), owner)) return true;
+        }
+        return false;
+    }
+
+    private static void begin() {
+        CHUNK_STATE.clear();
+        hasLast = false;
+    }
+
+    /**
+     * @param allowedOwner the only owner (null = wilderness) whose chunks may be touched
+     */
+    private static boolean blocked(int dimensionId, int blockX, int blockZ, Town allowedOwner) {
+        long key = ClaimPos.chunkKey(blockX >> 4, blockZ >> 4);
+        if (hasLast && key == lastKey) return lastBlocked;
+
+        byte state = CHUNK_STATE.get(key);
+        if (state == UNKNOWN) {
+            state = ClaimIndex.get(dimensionId, key) != allowedOwner ? BLOCKED : ALLOWED;
+            CHUNK_STATE.put(key, state);
+        }
+        lastKey = key;
+        lastBlocked = state == BLOCKED;
+        hasLast = true;
+        return lastBlocked;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.feudal.protection;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.ClaimIndex;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionResult;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.piston.PistonStructureResolver;
+import net.neoforged.bus.api.EventPriority;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerInteractEvent;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ExplosionEvent;
+import net.neoforged.neoforge.event.level.PistonEvent;
+
+/**
+ * Hooks claim protection into block break/place, right-click, explosion, piston and fluid events.
+ * Decisions are made by ProtectionManager (single block) and AreaProtection (many blocks);
+ * this class only adapts the events.
+ */
+@EventBusSubscriber(modid = "feudalism")
+public class ProtectionEvents {
+
+    // -------------------------------------------------------------------------
+    // PLAYERS
+    // -------------------------------------------------------------------------
+
+    @SubscribeEvent(priority = EventPriority.HIGH)
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (!(event.getPlayer() instanceof ServerPlayer player)) return;
+        if (!(event.getLevel() instanceof Level level)) return;
+
+        if (!ProtectionManager.canAct(player, level, event.getPos(), ProtectionManager.Action.BUILD)) {
+            event.setCanceled(true);
+        }
+    }
+
+    // Also covers EntityMultiPlaceEvent (beds, doors...)
+    @SubscribeEvent(priority = EventPriority.HIGH)
+    public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) return;
+        if (!(event.getLevel() instanceof Level level)) return;
+
+        if (!ProtectionManager.canAct(player, level, event.getPos(), ProtectionManager.Action.BUILD)) {
+            event.setCanceled(true);
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGH)
+    public static void onRightClickBlock(PlayerInteractEvent.RightClickBlock event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) return; // client side
+
+        if (!ProtectionManager.canAct(player, event.getLevel(), event.getPos(), ProtectionManager.Action.INTERACT)) {
+            event.setCanceled(true);
+            event.setCancellationResult(InteractionResult.FAIL);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        ProtectionManager.forget(event.getEntity().getUUID());
+    }
+
+    // -------------------------------------------------------------------------
+    // WORLD
+    // -------------------------------------------------------------------------
+
+    @SubscribeEvent
+    public static void onExplosion(ExplosionEvent.Detonate event) {
+        if (!FeudalConfig.PROTECTION_ENABLED.get() || !FeudalConfig.PROTECT_FROM_EXPLOSIONS.get()) return;
+
+        AreaProtection.filterClaimed(ProtectionManager.dimensionId(event.getLevel()), event.getAffectedBlocks());
+    }
+
+    @SubscribeEvent
+    public static void onPistonMove(PistonEvent.Pre event) {
+        if (!FeudalConfig.PROTECTION_ENABLED.get()) return;
+        if (!(event.getLevel() instanceof Level level) || level.isClientSide()) return;
+
+        int dimensionId = ProtectionManager.dimensionId(level);
+        if (!ClaimIndex.hasClaims(dimensionId)) return; // skip building the structure resolver
+
+        boolean extend = event.getPistonMoveType().isExtend;
+        if (!extend && !level.getBlockState(event.getPos()).is(Blocks.STICKY_PISTON)) return; // pulls nothing
+
+        PistonStructureResolver resolver = event.getStructureHelper();
+        if (resolver == null || !resolver.resolve()) return; // vanilla will not move anything
+
+        Direction push = extend ? event.getDirection() : event.getDirection().getOpposite();
+        BlockPos head = extend ? event.getFaceOffsetPos() : null;
+
+        if (AreaProtection.pistonCrossesClaim(dimensionId, event.getPos(), resolver, push, head)) {
+            event.setCanceled(true);
+        }
+    }
+
+    // Fluid flow itself is stopped in FlowingFluidMixin. This covers the blocks fluids place:
+    // fire lit by lava, and stone / cobblestone / basalt where lava meets water.
+    @SubscribeEvent
+    public static void onFluidPlace(BlockEvent.FluidPlaceBlockEvent event) {
+        if (!(event.getLevel() instanceof Level level)) return;
+
+        if (!ProtectionManager.canFluidSpread(level, event.getLiquidPos(), event.getPos())) {
+            event.setCanceled(true);
+        }
+    }
+}
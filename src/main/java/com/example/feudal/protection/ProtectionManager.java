@@ -0,0 +1,175 @@
+package com.example.feudal.protection;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.AccessEpoch;
+import com.example.feudal.town.ClaimDimensions;
+import com.example.feudal.town.ClaimIndex;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownRank;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides whether a player may build / interact at a position.
+ *
+ * Hot path, called for every block event:
+ *  - wilderness costs one dimension id lookup and one ClaimIndex miss, nothing else
+ *  - inside a claim the decision comes from a small per-player cache keyed by chunk,
+ *    valid while AccessEpoch is unchanged (claims, membership and ranks bump it) and
+ *    CITIZENS_CAN_BUILD still has the value the caches were filled with
+ *  - nothing is allocated unless the action is denied
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - The op bypass is checked only after a deny, so /op and /deop apply immediately
+ */
+public final class ProtectionManager {
+
+    public enum Action {
+        BUILD(1),
+        INTERACT(2);
+
+        private final int bit;
+
+        Action(int bit) {
+            this.bit = bit;
+        }
+    }
+
+    // Direct-mapped, so a player walking around never evicts more than one entry per chunk
+    private static final int CACHE_SLOTS = 16;
+
+    private static final Reference2IntOpenHashMap<ResourceKey<Level>> DIMENSION_IDS = new Reference2IntOpenHashMap<>();
+    private static final Map<UUID, AccessCache> CACHES = new HashMap<>();
+
+    // CITIZENS_CAN_BUILD as of the cached decisions. Config reloads run off the server
+    // thread, so the value is compared here instead of bumping AccessEpoch from there.
+    private static boolean cachedCitizensCanBuild = true;
+
+    static {
+        DIMENSION_IDS.defaultReturnValue(-1);
+    }
+
+    private ProtectionManager() {
+    }
+
+    // ========================================================================
+    // LOOKUP
+    // ========================================================================
+
+    /**
+     * ClaimDimensions id of a level, without building its name string on every call.
+     */
+    public static int dimensionId(Level level) {
+        ResourceKey<Level> key = level.dimension();
+        int id = DIMENSION_IDS.getInt(key);
+        if (id < 0) {
+            id = ClaimDimensions.intern(key.location().toString());
+            DIMENSION_IDS.put(key, id);
+        }
+        return id;
+    }
+
+    public static Town ownerAt(Level level, BlockPos pos) {
+        return ClaimIndex.get(dimensionId(level), ClaimPos.chunkKey(pos.getX() >> 4, pos.getZ() >> 4));
+    }
+
+    // ========================================================================
+    // CHECKS
+    // ========================================================================
+
+    /**
+     * @return true if the player may perform the action at pos. Tells the player why not otherwise.
+     */
+    public static boolean canAct(ServerPlayer player, Level level, BlockPos pos, Action action) {
+        if (!FeudalConfig.PROTECTION_ENABLED.get()) return true;
+
+        int dimensionId = dimensionId(level);
+        long chunkKey = ClaimPos.chunkKey(pos.getX() >> 4, pos.getZ() >> 4);
+        Town owner = ClaimIndex.get(dimensionId, chunkKey);
+        if (owner == null) return true; // wilderness
+
+        if ((allowedActions(player.getUUID(), owner, dimensionId, chunkKey) & action.bit) != 0) return true;
+        if (FeudalConfig.OPS_BYPASS_PROTECTION.get() && player.hasPermissions(2)) return true;
+
+        player.displayClientMessage(Component.literal("This land belongs to " + owner.getName() + "."), true);
+        return false;
+    }
+
+    /**
+     * @return false if fluid at from may not spread to to, i.e. to lies in a claim owned by
+     *         someone other than the owner of from's chunk. Flow within a chunk is always allowed.
+     */
+    public static boolean canFluidSpread(Level level, BlockPos from, BlockPos to) {
+        if (!FeudalConfig.PROTECTION_ENABLED.get() || !FeudalConfig.PROTECT_FROM_FLUIDS.get()) return true;
+
+        int chunkX = to.getX() >> 4;
+        int chunkZ = to.getZ() >> 4;
+        if (chunkX == from.getX() >> 4 && chunkZ == from.getZ() >> 4) return true;
+
+        int dimensionId = dimensionId(level);
+        Town owner = ClaimIndex.get(dimensionId, ClaimPos.chunkKey(chunkX, chunkZ));
+        return owner == null || owner == ClaimIndex.get(dimensionId, ClaimPos.chunkKey(from.getX() >> 4, from.getZ() >> 4));
+    }
+
+    private static int allowedActions(UUID player, Town owner, int dimensionId, long chunkKey) {
+        boolean citizensCanBuild = FeudalConfig.CITIZENS_CAN_BUILD.get();
+        if (citizensCanBuild != cachedCitizensCanBuild) {
+            cachedCitizensCanBuild = citizensCanBuild;
+            CACHES.clear();
+        }
+
+        AccessCache cache = CACHES.computeIfAbsent(player, id -> new AccessCache());
+        int slot = (Long.hashCode(chunkKey * 0x9E3779B97F4A7C15L) ^ dimensionId) & (CACHE_SLOTS - 1);
+        int epoch = AccessEpoch.current();
+
+        if (cache.epochs[slot] == epoch && cache.chunkKeys[slot] == chunkKey && cache.dimensions[slot] == dimensionId) {
+            return cache.allowed[slot];
+        }
+
+        int allowed = computeAllowed(player, owner);
+        cache.chunkKeys[slot] = chunkKey;
+        cache.dimensions[slot] = dimensionId;
+        cache.epochs[slot] = epoch;
+        cache.allowed[slot] = (byte) allowed;
+        return allowed;
+    }
+
+    private static int computeAllowed(UUID player, Town owner) {
+        TownRank rank = owner.getRank(player);
+        if (rank == null) return 0; // not a member
+
+        int allowed = 0;
+        if (rank.canBuild()) allowed |= Action.BUILD.bit;
+        if (rank.canInteract()) allowed |= Action.INTERACT.bit;
+        return allowed;
+    }
+
+    /**
+     * Drops a player's cache (on logout).
+     */
+    public static void forget(UUID player) {
+        CACHES.remove(player);
+    }
+
+    private static final class AccessCache {
+        final long[] chunkKeys = new long[CACHE_SLOTS];
+        final int[] dimensions = new int[CACHE_SLOTS];
+        final int[] epochs = new int[CACHE_SLOTS];
+        final byte[] allowed = new byte[CACHE_SLOTS];
+
+        AccessCache() {
+            Arrays.fill(dimensions, -1); // never matches, so every slot starts empty
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.feudal.territory;
+
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.TownSnapshot;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges a set of claimed chunks into border polygons.
+ *
+ * Every chunk side that faces an unclaimed chunk becomes a directed edge with the claim
+ * on its left; edges are then chained into closed rings. Counter-clockwise rings (with z
+ * as the y axis) are outer borders, clockwise ones are holes, the same winding GeoJSON
+ * uses. Where two chunks only touch at a corner the walk turns left, so they stay two
+ * separate polygons instead of one ring crossing itself. Only corners are kept.
+ *
+ * Costs O(claims) plus a point-in-polygon test per hole. Coordinates are chunk corners
+ * (multiply by 16 for block coordinates). Thread-safe: no shared state.
+ */
+final class ClaimPolygons {
+
+    // Directions in counter-clockwise order: +x, +z, -x, -z
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DZ = {0, 1, 0, -1};
+
+    /**
+     * One polygon: an outer ring and its holes, each a closed x0,z0,x1,z1,... array
+     * (the first corner is repeated at the end).
+     */
+    static final class Polygon {
+        final int[] outer;
+        final List<int[]> holes = new ArrayList<>();
+        final long doubleArea;
+
+        Polygon(int[] outer, long doubleArea) {
+            this.outer = outer;
+            this.doubleArea = doubleArea;
+        }
+    }
+
+    private ClaimPolygons() {
+    }
+
+    static List<Polygon> trace(TownSnapshot.DimensionClaims claims) {
+        int size = claims.size();
+        LongOpenHashSet chunks = new LongOpenHashSet(size);
+        for (int i = 0; i < size; i++) {
+            chunks.add(claims.chunkKey(i));
+        }
+
+        // corner -> bit mask of outgoing edge directions
+        Long2IntOpenHashMap edges = new Long2IntOpenHashMap(size * 2);
+        for (int i = 0; i < size; i++) {
+            long key = claims.chunkKey(i);
+            int x = ClaimPos.chunkX(key);
+            int z = ClaimPos.chunkZ(key);
+            if (!chunks.contains(ClaimPos.chunkKey(x, z - 1))) addEdge(edges, x, z, 0);
+            if (!chunks.contains(ClaimPos.chunkKey(x + 1, z))) addEdge(edges, x + 1, z, 1);
+            if (!chunks.contains(ClaimPos.chunkKey(x, z + 1))) addEdge(edges, x + 1, z + 1, 2);
+            if (!chunks.contains(ClaimPos.chunkKey(x - 1, z))) addEdge(edges, x, z + 1, 3);
+        }
+
+        List<Polygon> polygons = new ArrayList<>();
+        List<int[]> holes = new ArrayList<>();
+        while (!edges.isEmpty()) {
+            int[] ring = walk(edges, edges.keySet().iterator().nextLong());
+            long area = doubleArea(ring);
+            if (area > 0) polygons.add(new Polygon(ring, area));
+            else holes.add(ring);
+        }
+
+        for (int[] hole : holes) {
+            Polygon owner = ownerOf(hole, polygons);
+            if (owner != null) owner.holes.add(hole);
+        }
+        return polygons;
+    }
+
+    private static void addEdge(Long2IntOpenHashMap edges, int x, int z, int direction) {
+        long corner = ClaimPos.chunkKey(x, z);
+        edges.put(corner, edges.get(corner) | (1 << direction));
+    }
+
+    /**
+     * Follows edges from start until it is back there, consuming them. Prefers left
+     * turns, then straight, then right.
+     */
+    private static int[] walk(Long2IntOpenHashMap edges, long start) {
+        IntArrayList corners = new IntArrayList();
+        int firstDirection = Integer.numberOfTrailingZeros(edges.get(start));
+        int direction = firstDirection;
+        long corner = start;
+        corners.add(ClaimPos.chunkX(start));
+        corners.add(ClaimPos.chunkZ(start));
+
+        while (true) {
+            int mask = edges.get(corner) & ~(1 << direction);
+            if (mask == 0) edges.remove(corner);
+            else edges.put(corner, mask);
+
+            int x = ClaimPos.chunkX(corner) + DX[direction];
+            int z = ClaimPos.chunkZ(corner) + DZ[direction];
+            corner = ClaimPos.chunkKey(x, z);
+            if (corner == start) break;
+
+            int out = edges.get(corner);
+            int next = (direction + 1) & 3;
+            if ((out & (1 << next)) == 0) next = direction;
+            if ((out & (1 << next)) == 0) next = (direction + 3) & 3;
+            if (next != direction) {
+                corners.add(x);
+                corners.add(z);
+            }
+            direction = next;
+        }
+
+        if (direction == firstDirection) {
+            // start lies in the middle of a straight side, so it is no corner
+            corners.removeElements(0, 2);
+        }
+        corners.add(corners.getInt(0));
+        corners.add(corners.getInt(1));
+        return corners.toIntArray();
+    }
+
+    /**
+     * Twice the signed area; positive for counter-clockwise rings.
+     */
+    private static long doubleArea(int[] ring) {
+        long sum = 0;
+        for (int i = 0; i + 3 < ring.length; i += 2) {
+            sum += (long) ring[i] * ring[i + 3] - (long) ring[i + 2] * ring[i + 1];
+        }
+        return sum;
+    }
+
+    /**
+     * The smallest outer ring around the claimed chunk on the inner side of the hole's
+     * first edge. Tested at that chunk's centre, which can never lie on an edge.
+     */
+    private static Polygon ownerOf(int[] hole, List<Polygon> polygons) {
+        int dx = Integer.signum(hole[2] - hole[0]);
+        int dz = Integer.signum(hole[3] - hole[1]);
+        // doubled coordinates: half a chunk along the edge, half a chunk to its left
+        long px = 2L * hole[0] + dx - dz;
+        long pz = 2L * hole[1] + dz + dx;
+
+        Polygon best = null;
+        for (Polygon polygon : polygons) {
+            if ((best == null || polygon.doubleArea < best.doubleArea) && contains(polygon.outer, px, pz)) {
+                best = polygon;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Even-odd test of a point given in doubled coordinates.
+     */
+    private static boolean contains(int[] ring, long px, long pz) {
+        boolean inside = false;
+        for (int i = 0; i + 3 < ring.length; i += 2) {
+            long z1 = 2L * ring[i + 1];
+            long z2 = 2L * ring[i + 3];
+            // rings are axis-aligned, so an edge spanning pz is vertical at x = ring[i]
+            if ((z1 > pz) != (z2 > pz) && 2L * ring[i] > px) inside = !inside;
+        }
+        return inside;
+    }
+}
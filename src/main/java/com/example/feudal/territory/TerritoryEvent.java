@@ -0,0 +1,51 @@
+package com.example.feudal.territory;
+
+import com.example.feudal.town.Town;
+import com.example.feudal.town.TownManager;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.bus.api.Event;
+
+import java.util.UUID;
+
+/**
+ * Posted on NeoForge.EVENT_BUS by TerritoryTracker when a player crosses into or out of
+ * a town's claims. Moving between two towns posts Leave for the old one, then Enter.
+ * Server thread only, not cancelable.
+ */
+public abstract class TerritoryEvent extends Event {
+
+    private final ServerPlayer player;
+    private final UUID townId;
+
+    protected TerritoryEvent(ServerPlayer player, UUID townId) {
+        this.player = player;
+        this.townId = townId;
+    }
+
+    public ServerPlayer getPlayer() {
+        return player;
+    }
+
+    public UUID getTownId() {
+        return townId;
+    }
+
+    /**
+     * @return the town, or null if it was disbanded in the meantime
+     */
+    public Town getTown() {
+        return TownManager.getTown(townId);
+    }
+
+    public static class Enter extends TerritoryEvent {
+        public Enter(ServerPlayer player, UUID townId) {
+            super(player, townId);
+        }
+    }
+
+    public static class Leave extends TerritoryEvent {
+        public Leave(ServerPlayer player, UUID townId) {
+            super(player, townId);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.feudal.territory;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.town.TownChanges;
+import com.example.feudal.town.TownManager;
+import com.example.feudal.town.TownSnapshot;
+import com.example.feudal.town.TownStorage;
+import com.google.gson.Gson;
+import net.neoforged.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes town borders as GeoJSON for web maps.
+ *
+ * Output (map_export.MAP_EXPORT_FOLDER, relative to the server directory):
+ *  - <dimension>.geojson: one FeatureCollection per dimension, one MultiPolygon Feature per
+ *    town, in block coordinates ([x, z])
+ *  - index.json: snapshot version, time and the file of every dimension
+ *
+ * Runs on its own "Feudalism-MapExport" thread and only reads TownSnapshots, never live
+ * towns. Each run asks TownManager.changesSince() for what changed; borders are traced
+ * again only for (town, dimension) pairs whose claims changed (snapshots share unchanged
+ * claim arrays, so that is a reference check), and only dimensions with a changed feature
+ * are rewritten. A full rebuild happens on the first run or when the change log cannot
+ * answer any more.
+ */
+public final class TerritoryMapExporter {
+
+    private static final Logger LOGGER = LogManager.getLogger("Feudalism-MapExport");
+    private static final Gson GSON = new Gson();
+
+    private static final ExecutorService EXPORTER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Feudalism-MapExport");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Set while a run is queued or running, so slow runs never pile up
+    private static final AtomicBoolean BUSY = new AtomicBoolean();
+
+    // Server thread only
+    private static int ticksSinceExport = 0;
+
+    // Export thread only
+    private static long syncedVersion = -1L; // -1 = rebuild everything next run
+    private static final Map<UUID, TownSnapshot> TOWNS = new HashMap<>();
+    private static final Map<String, Map<UUID, Feature>> DIMENSIONS = new TreeMap<>();
+    private static final Set<String> DIRTY_DIMENSIONS = new HashSet<>();
+
+    /**
+     * One town's borders in one dimension.
+     */
+    private static final class Feature {
+        TownSnapshot.DimensionClaims source;
+        String geometry;
+        String json;
+    }
+
+    private TerritoryMapExporter() {
+    }
+
+    /**
+     * Called every server tick, after TownManager.publishSnapshots().
+     */
+    public static void tick() {
+        if (!FeudalConfig.MAP_EXPORT_ENABLED.get()) return;
+        if (++ticksSinceExport < FeudalConfig.MAP_EXPORT_INTERVAL_SECONDS.get() * 20) return;
+        ticksSinceExport = 0;
+        submit();
+    }
+
+    /**
+     * Forgets everything exported so far; the next run rebuilds all files. Call after
+     * towns were (re)loaded.
+     */
+    public static void reset() {
+        ticksSinceExport = 0;
+        EXPORTER.execute(() -> syncedVersion = -1L);
+    }
+
+    /**
+     * Exports pending changes and waits (briefly) for it, used on shutdown.
+     */
+    public static void flush() {
+        if (!FeudalConfig.MAP_EXPORT_ENABLED.get()) return;
+        TownManager.publishSnapshots();
+        BUSY.set(true);
+        Future<?> run = EXPORTER.submit(TerritoryMapExporter::run);
+        try {
+            run.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOGGER.warn("Map export did not finish before shutdown", e);
+        }
+    }
+
+    private static void submit() {
+        if (!BUSY.compareAndSet(false, true)) return;
+        EXPORTER.execute(TerritoryMapExporter::run);
+    }
+
+    // ========================================================================
+    // EXPORT THREAD
+    // ========================================================================
+
+    private static void run() {
+        try {
+            Path folder = FMLPaths.GAMEDIR.get().resolve(FeudalConfig.MAP_EXPORT_FOLDER.get());
+            TownChanges changes = syncedVersion < 0 ? null : TownManager.changesSince(syncedVersion);
+            if (changes == null) {
+                rebuild();
+            } else {
+                for (TownSnapshot town : changes.getUpdated()) update(town);
+                for (UUID id : changes.getRemoved()) remove(id);
+                syncedVersion = changes.getVersion();
+            }
+            if (!DIRTY_DIMENSIONS.isEmpty()) write(folder);
+        } catch (Exception e) {
+            LOGGER.error("Map export failed", e);
+            syncedVersion = -1L; // start over next time
+        } finally {
+            BUSY.set(false);
+        }
+    }
+
+    private static void rebuild() {
+        long version = TownManager.getVersion(); // read first; later changes are picked up next run
+        DIRTY_DIMENSIONS.addAll(DIMENSIONS.keySet()); // rewritten even if they end up empty
+        for (Map<UUID, Feature> features : DIMENSIONS.values()) {
+            features.clear();
+        }
+        TOWNS.clear();
+
+        for (TownSnapshot town : TownManager.getSnapshots()) {
+            update(town);
+        }
+        syncedVersion = version;
+    }
+
+    private static void update(TownSnapshot town) {
+        TownSnapshot previous = TOWNS.put(town.getId(), town);
+        boolean propertiesChanged = previous == null || !previous.getName().equals(town.getName());
+
+        for (TownSnapshot.DimensionClaims claims : town.getClaims()) {
+            Map<UUID, Feature> features = DIMENSIONS.computeIfAbsent(claims.getDimension(), d -> new HashMap<>());
+            Feature feature = features.computeIfAbsent(town.getId(), id -> new Feature());
+            boolean claimsChanged = feature.source != claims;
+            if (claimsChanged) {
+                feature.source = claims;
+                feature.geometry = geometry(ClaimPolygons.trace(claims));
+            }
+            if (claimsChanged || propertiesChanged || feature.json == null) {
+                feature.json = feature(town, claims, feature.geometry);
+                DIRTY_DIMENSIONS.add(claims.getDimension());
+            }
+        }
+
+        if (previous != null && previous.getClaims() != town.getClaims()) {
+            // drop dimensions the town no longer claims anything in
+            for (TownSnapshot.DimensionClaims old : previous.getClaims()) {
+                if (!hasDimension(town, old.getDimensionId())) removeFeature(old.getDimension(), town.getId());
+            }
+        }
+    }
+
+    private static void remove(UUID id) {
+        TownSnapshot previous = TOWNS.remove(id);
+        if (previous == null) return;
+        for (TownSnapshot.DimensionClaims claims : previous.getClaims()) {
+            removeFeature(claims.getDimension(), id);
+        }
+    }
+
+    private static boolean hasDimension(TownSnapshot town, int dimensionId) {
+        for (TownSnapshot.DimensionClaims claims : town.getClaims()) {
+            if (claims.getDimensionId() == dimensionId) return true;
+        }
+        return false;
+    }
+
+    private static void removeFeature(String dimension, UUID town) {
+        Map<UUID, Feature> features = DIMENSIONS.get(dimension);
+        if (features != null && features.remove(town) != null) DIRTY_DIMENSIONS.add(dimension);
+    }
+
+    // ========================================================================
+    // GEOJSON
+    // ========================================================================
+
+    private static String feature(TownSnapshot town, TownSnapshot.DimensionClaims claims, String geometry) {
+        return "{\"type\":\"Feature\",\"id\":\"" + town.getId()
+                + "\",\"properties\":{\"town\":\"" + town.getId()
+                + "\",\"name\":" + GSON.toJson(town.getName())
+                + ",\"claims\":" + claims.size()
+                + "},\"geometry\":" + geometry + "}";
+    }
+
+    private static String geometry(List<ClaimPolygons.Polygon> polygons) {
+        StringBuilder out = new StringBuilder("{\"type\":\"MultiPolygon\",\"coordinates\":[");
+        for (int p = 0; p < polygons.size(); p++) {
+            ClaimPolygons.Polygon polygon = polygons.get(p);
+            if (p > 0) out.append(',');
+            out.append('[');
+            ring(out, polygon.outer);
+            for (int[] hole : polygon.holes) {
+                out.append(',');
+                ring(out, hole);
+            }
+            out.append(']');
+        }
+        return out.append("]}").toString();
+    }
+
+    private static void ring(StringBuilder out, int[] ring) {
+        out.append('[');
+        for (int i = 0; i < ring.length; i += 2) {
+            if (i > 0) out.append(',');
+            out.append('[').append(ring[i] * 16).append(',').append(ring[i + 1] * 16).append(']');
+        }
+        out.append(']');
+    }
+
+    // ========================================================================
+    // FILES
+    // ========================================================================
+
+    private static void write(Path folder) throws IOException {
+        Files.createDirectories(folder);
+
+        for (String dimension : DIRTY_DIMENSIONS) {
+            Map<UUID, Feature> features = DIMENSIONS.get(dimension);
+            StringBuilder out = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+            boolean first = true;
+            for (Feature feature : features.values()) {
+                if (!first) out.append(',');
+                out.append(feature.json);
+                first = false;
+            }
+            writeAtomically(folder.resolve(fileName(dimension)), out.append("]}").toString());
+        }
+        DIRTY_DIMENSIONS.clear();
+
+        StringBuilder index = new StringBuilder("{\"version\":").append(syncedVersion)
+                .append(",\"generated\":").append(System.currentTimeMillis())
+                .append(",\"dimensions\":{");
+        boolean first = true;
+        for (String dimension : DIMENSIONS.keySet()) {
+            if (!first) index.append(',');
+            index.append(GSON.toJson(dimension)).append(':').append(GSON.toJson(fileName(dimension)));
+            first = false;
+        }
+        writeAtomically(folder.resolve("index.json"), index.append("}}").toString());
+    }
+
+    // "minecraft:the_nether" -> "minecraft_the_nether.geojson"
+    private static String fileName(String dimension) {
+        return dimension.replaceAll("[^a-zA-Z0-9_.-]", "_") + ".geojson";
+    }
+
+    private static void writeAtomically(Path target, String json) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(json);
+        }
+        TownStorage.moveAtomically(temp, target);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.feudal.territory;
+
+import com.example.feudal.config.FeudalConfig;
+import com.example.feudal.protection.ProtectionManager;
+import com.example.feudal.town.AccessEpoch;
+import com.example.feudal.town.ClaimIndex;
+import com.example.feudal.town.ClaimPos;
+import com.example.feudal.town.Town;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.tick.PlayerTickEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Tracks which town's land every online player is standing in.
+ *
+ * Each tick only compares the player's packed chunk key + dimension id with the cached
+ * ones. Ownership is looked up again only when the chunk changed or AccessEpoch moved
+ * (a claim/unclaim may have happened under the player's feet), and TerritoryEvent.Enter /
+ * Leave are posted only when the owning town actually differs.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Use getCurrentTown() instead of resolving the player's chunk yourself
+ */
+@EventBusSubscriber(modid = "feudalism")
+public class TerritoryTracker {
+
+    private static final Map<UUID, Position> POSITIONS = new HashMap<>();
+
+    private static final class Position {
+        int dimensionId = -1;
+        long chunkKey;
+        int epoch;
+        UUID townId; // null = wilderness
+    }
+
+    /**
+     * @return id of the town whose claim the player stands in, or null for wilderness / unknown
+     */
+    public static UUID getCurrentTown(UUID player) {
+        Position position = POSITIONS.get(player);
+        return position == null ? null : position.townId;
+    }
+
+    // -------------------------------------------------------------------------
+    // TRACKING
+    // -------------------------------------------------------------------------
+
+    @SubscribeEvent
+    public static void onPlayerTick(PlayerTickEvent.Post event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) return;
+
+        Position position = POSITIONS.computeIfAbsent(player.getUUID(), id -> new Position());
+        int dimensionId = ProtectionManager.dimensionId(player.level());
+        long chunkKey = ClaimPos.chunkKey(player.getBlockX() >> 4, player.getBlockZ() >> 4);
+        int epoch = AccessEpoch.current();
+
+        if (chunkKey == position.chunkKey && dimensionId == position.dimensionId && epoch == position.epoch) return;
+
+        position.chunkKey = chunkKey;
+        position.dimensionId = dimensionId;
+        position.epoch = epoch;
+
+        Town owner = ClaimIndex.get(dimensionId, chunkKey);
+        UUID townId = owner == null ? null : owner.getId();
+        if (Objects.equals(townId, position.townId)) return;
+
+        UUID previous = position.townId;
+        position.townId = townId;
+        if (previous != null) NeoForge.EVENT_BUS.post(new TerritoryEvent.Leave(player, previous));
+        if (townId != null) NeoForge.EVENT_BUS.post(new TerritoryEvent.Enter(player, townId));
+        if (townId == null && FeudalConfig.SHOW_TERRITORY_MESSAGES.get()) {
+            player.displayClientMessage(Component.literal("~ Wilderness ~"), true);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        POSITIONS.remove(event.getEntity().getUUID());
+    }
+
+    // -------------------------------------------------------------------------
+    // DEFAULT NOTIFICATIONS
+    // -------------------------------------------------------------------------
+
+    @SubscribeEvent
+    public static void onEnterTown(TerritoryEvent.Enter event) {
+        if (!FeudalConfig.SHOW_TERRITORY_MESSAGES.get()) return;
+
+        Town town = event.getTown();
+        if (town == null) return;
+
+        ServerPlayer player = event.getPlayer();
+        player.displayClientMessage(Component.literal("~ " + town.getName() + " ~"), true);
+        if (!town.getMotd().isEmpty()) {
+            player.sendSystemMessage(Component.literal("[" + town.getName() + "] " + town.getMotd()));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.feudal.town;
+
+/**
+ * Global counter bumped whenever anything that decides who may act in a claim changes:
+ * claim ownership, town membership, leaders or ranks.
+ *
+ * Caches of access decisions (see ProtectionManager) store the epoch they were computed
+ * at and treat any other value as stale, so invalidating them is a single increment.
+ * Server thread only.
+ */
+public final class AccessEpoch {
+
+    private static int current = 0;
+
+    private AccessEpoch() {
+    }
+
+    public static int current() {
+        return current;
+    }
+
+    static void bump() {
+        current++;
+    }
+}
@@ -0,0 +1,529 @@
+package com.example.feudal.town;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only log of every town bank transaction (bank/ledger.bin), with balance snapshots
+ * (bank/ledger.snap) so startup only replays the records written after the last one.
+ *
+ * Records have a fixed size and each points back to the previous record of the same town,
+ * so the heap holds one small Account per town and nothing per record:
+ *  - balance: O(1)
+ *  - history of a town: follows its chain with positioned reads, one per entry
+ *  - startup: O(records since the snapshot)
+ * Records are staged in a buffer and written once per tick (or when the buffer fills),
+ * so a crash loses at most the current tick. A torn record at the end of the file fails
+ * its check value and is cut off on the next start.
+ *
+ * File format (big-endian): int magic "FDLG", int version, long creation time, then
+ * 72-byte records: int type, int check, long time, long amount, long balance after,
+ * long offset of the town's previous record (-1 for none), town uuid, counterparty uuid
+ * (0/0 for none).
+ *
+ * IMPORTANT:
+ *  - Server thread only; snapshot and shutdown writes run on the storage thread
+ *  - The ledger owns the balances. Town.bankGold is a copy kept in step by
+ *    manager.BankManager
+ *  - Types are stored by ordinal: only ever append new ones
+ */
+public final class BankLedger {
+
+    // File names inside the bank directory (TownStorage moves them on migration)
+    public static final String LOG_FILE = "ledger.bin";
+    public static final String SNAPSHOT_FILE = "ledger.snap";
+
+    private static final int MAGIC = 0x46444C47;          // "FDLG"
+    private static final int SNAPSHOT_MAGIC = 0x46444253; // "FDBS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SNAPSHOT_VERSION = 2; // 2: last upkeep time
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 72;
+    private static final int BUFFER_RECORDS = 512;
+    private static final long NONE = -1L;
+
+    public enum Type {
+        OPENING,      // balance found in town data without a ledger account
+        DEPOSIT,
+        WITHDRAW,
+        TRANSFER_IN,
+        TRANSFER_OUT,
+        UPKEEP,
+        CLOSE         // town disbanded; the account is dropped
+    }
+
+    /**
+     * One decoded record.
+     */
+    public static final class Entry {
+        private final Type type;
+        private final long time;
+        private final long amount;
+        private final long balance;
+        private final long previous;
+        private final UUID town;
+        private final UUID counterparty;
+
+        private Entry(Type type, long time, long amount, long balance, long previous, UUID town, UUID counterparty) {
+            this.type = type;
+            this.time = time;
+            this.amount = amount;
+            this.balance = balance;
+            this.previous = previous;
+            this.town = town;
+            this.counterparty = counterparty;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return wall-clock time in epoch milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return signed change of the balance
+         */
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public UUID getTown() {
+            return town;
+        }
+
+        /**
+         * @return the other town of a transfer, or null
+         */
+        public UUID getCounterparty() {
+            return counterparty;
+        }
+    }
+
+    private static final class Account {
+        long balance;
+        long last = NONE; // offset of the newest record
+        int records;
+        long lastUpkeep;  // time of the newest UPKEEP record, 0 if none
+    }
+
+    private final Path file;
+    private final Path snapshotFile;
+    private final Map<UUID, Account> accounts = new HashMap<>();
+    private final ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORDS);
+    private final ByteBuffer single = ByteBuffer.allocate(RECORD_SIZE);
+
+    private FileChannel channel;
+    private long end;           // offset of the next record, counting buffered ones
+    private long written;       // offset up to which records are in the file
+    private int sinceSnapshot;  // records not covered by the last snapshot
+
+    public BankLedger(Path dir) {
+        this.file = dir.resolve(LOG_FILE);
+        this.snapshotFile = dir.resolve(SNAPSHOT_FILE);
+    }
+
+    // ========================================================================
+    // OPENING
+    // ========================================================================
+
+    /**
+     * Opens or creates the ledger and restores every balance.
+     *
+     * @return records replayed after the snapshot
+     */
+    public int open() throws IOException {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        accounts.clear();
+        pending.clear();
+
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size == 0) {
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(System.currentTimeMillis()).flip();
+            writeFully(header, 0);
+            size = HEADER_SIZE;
+        } else {
+            if (size < HEADER_SIZE) throw new IOException(file + " is not a Feudalism bank ledger");
+            readFully(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException(file + " is not a Feudalism bank ledger");
+            int version = header.getInt();
+            if (version > FORMAT_VERSION) {
+                throw new IOException(file + " was written by a newer version (format " + version + ")");
+            }
+        }
+
+        long position = loadSnapshot(size);
+        int replayed = 0;
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        replay:
+        while (size - position >= RECORD_SIZE) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), (size - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(chunk, position);
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                Entry entry = decode(chunk);
+                if (entry == null) break replay;
+                apply(entry, position);
+                position += RECORD_SIZE;
+                replayed++;
+            }
+        }
+
+        if (position < size) {
+            TownStorage.LOGGER.warn("Cutting {} bytes of incomplete records off the end of {}.",
+                    size - position, file.getFileName());
+            channel.truncate(position);
+        }
+        end = written = position;
+        sinceSnapshot = replayed;
+        return replayed;
+    }
+
+    /**
+     * @return offset the replay starts at: the end covered by a usable snapshot, else the first record
+     */
+    private long loadSnapshot(long size) {
+        if (!Files.exists(snapshotFile)) return HEADER_SIZE;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                TownStorage.LOGGER.warn("Ignoring unreadable {}; replaying the whole ledger.", snapshotFile.getFileName());
+                return HEADER_SIZE;
+            }
+            long covered = in.readLong();
+            if (covered > size || covered < HEADER_SIZE || (covered - HEADER_SIZE) % RECORD_SIZE != 0) {
+                TownStorage.LOGGER.warn("{} does not match the ledger; replaying the whole ledger.",
+                        snapshotFile.getFileName());
+                return HEADER_SIZE;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                Account account = new Account();
+                account.balance = in.readLong();
+                account.last = in.readLong();
+                account.records = in.readInt();
+                if (version >= 2) account.lastUpkeep = in.readLong();
+                accounts.put(id, account);
+            }
+            return covered;
+        } catch (IOException e) {
+            TownStorage.LOGGER.warn("Failed to read {}; replaying the whole ledger.", snapshotFile.getFileName(), e);
+            accounts.clear();
+            return HEADER_SIZE;
+        }
+    }
+
+    private void apply(Entry entry, long position) {
+        if (entry.type == Type.CLOSE) {
+            accounts.remove(entry.town);
+            return;
+        }
+        Account account = accounts.computeIfAbsent(entry.town, id -> new Account());
+        account.balance = entry.balance;
+        account.last = position;
+        account.records++;
+        if (entry.type == Type.UPKEEP) account.lastUpkeep = entry.time;
+    }
+
+    // ========================================================================
+    // RECORDING
+    // ========================================================================
+
+    /**
+     * Appends one record. Nothing changes if it throws.
+     *
+     * @param amount signed change of the balance
+     * @return the town's balance after the record
+     */
+    public long record(Type type, UUID town, long amount) throws IOException {
+        reserve(1);
+        return put(type, town, null, amount);
+    }
+
+    /**
+     * Appends both sides of a transfer back to back, so they reach the file in one write.
+     */
+    public void transfer(UUID from, UUID to, long amount) throws IOException {
+        reserve(2);
+        put(Type.TRANSFER_OUT, from, to, -amount);
+        put(Type.TRANSFER_IN, to, from, amount);
+    }
+
+    /**
+     * Records the remaining balance as gone and drops the account.
+     */
+    public void closeAccount(UUID town) throws IOException {
+        Account account = accounts.get(town);
+        if (account == null) return;
+        reserve(1);
+        put(Type.CLOSE, town, null, -account.balance);
+    }
+
+    private void reserve(int records) throws IOException {
+        if (channel == null) throw new IOException("Bank ledger is not open");
+        if (pending.remaining() < records * RECORD_SIZE) flush();
+    }
+
+    private long put(Type type, UUID town, UUID counterparty, long amount) {
+        Account account = accounts.get(town);
+        long balance = (account == null ? 0L : account.balance) + amount;
+        long time = System.currentTimeMillis();
+        long previous = account == null ? NONE : account.last;
+        long otherMsb = counterparty == null ? 0L : counterparty.getMostSignificantBits();
+        long otherLsb = counterparty == null ? 0L : counterparty.getLeastSignificantBits();
+
+        pending.putInt(type.ordinal())
+                .putInt(check(type.ordinal(), time, amount, balance, previous,
+                        town.getMostSignificantBits(), town.getLeastSignificantBits(), otherMsb, otherLsb))
+                .putLong(time)
+                .putLong(amount)
+                .putLong(balance)
+                .putLong(previous)
+                .putLong(town.getMostSignificantBits())
+                .putLong(town.getLeastSignificantBits())
+                .putLong(otherMsb)
+                .putLong(otherLsb);
+
+        if (type == Type.CLOSE) {
+            accounts.remove(town);
+        } else {
+            if (account == null) {
+                account = new Account();
+                accounts.put(town, account);
+            }
+            account.balance = balance;
+            account.last = end;
+            account.records++;
+            if (type == Type.UPKEEP) account.lastUpkeep = time;
+        }
+        end += RECORD_SIZE;
+        sinceSnapshot++;
+        return balance;
+    }
+
+    /**
+     * Writes buffered records to the file (not forced to disk).
+     */
+    public void flush() throws IOException {
+        int bytes = pending.position();
+        if (bytes == 0) return;
+
+        pending.flip();
+        try {
+            writeFully(pending, written);
+        } catch (IOException e) {
+            pending.limit(pending.capacity()).position(bytes); // keep them for the next attempt
+            throw e;
+        }
+        written += bytes;
+        pending.clear();
+    }
+
+    // ========================================================================
+    // QUERIES
+    // ========================================================================
+
+    public boolean hasAccount(UUID town) {
+        return accounts.containsKey(town);
+    }
+
+    public long getBalance(UUID town) {
+        Account account = accounts.get(town);
+        return account == null ? 0L : account.balance;
+    }
+
+    /**
+     * @return records in the town's history
+     */
+    public int getRecordCount(UUID town) {
+        Account account = accounts.get(town);
+        return account == null ? 0 : account.records;
+    }
+
+    /**
+     * @return time of the town's newest UPKEEP record (epoch milliseconds), 0 if none
+     */
+    public long getLastUpkeep(UUID town) {
+        Account account = accounts.get(town);
+        return account == null ? 0L : account.lastUpkeep;
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    public long sizeOnDisk() {
+        return TownStorage.sizeOf(file);
+    }
+
+    /**
+     * Newest first. Costs one positioned read per entry skipped or returned.
+     */
+    public List<Entry> history(UUID town, int skip, int limit) throws IOException {
+        Account account = accounts.get(town);
+        if (account == null || limit <= 0) return Collections.emptyList();
+        flush();
+
+        List<Entry> out = new ArrayList<>(limit);
+        long position = account.last;
+        for (int i = 0; position != NONE && i < skip + limit; i++) {
+            single.clear();
+            readFully(single, position);
+            single.flip();
+            Entry entry = decode(single);
+            if (entry == null || !entry.town.equals(town)) {
+                throw new IOException("Broken history chain at offset " + position + " of " + file.getFileName());
+            }
+            if (i >= skip) out.add(entry);
+            position = entry.previous;
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // SNAPSHOTS
+    // ========================================================================
+
+    /**
+     * Flushes, and takes a snapshot once snapshotEvery records have been written since the last one.
+     */
+    public void tick(int snapshotEvery) throws IOException {
+        flush();
+        if (sinceSnapshot >= snapshotEvery) TownStorage.submitWrite(snapshot());
+    }
+
+    /**
+     * Captures all balances on the server thread. The returned write forces the ledger to
+     * disk before replacing the snapshot, so a snapshot never covers records that could
+     * still be lost.
+     */
+    public TownStorageBackend.PendingWrite snapshot() throws IOException {
+        flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(20 + accounts.size() * 52);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(written);
+        out.writeInt(accounts.size());
+        for (Map.Entry<UUID, Account> entry : accounts.entrySet()) {
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            out.writeLong(entry.getValue().balance);
+            out.writeLong(entry.getValue().last);
+            out.writeInt(entry.getValue().records);
+            out.writeLong(entry.getValue().lastUpkeep);
+        }
+        byte[] data = bytes.toByteArray();
+        sinceSnapshot = 0;
+
+        FileChannel target = channel;
+        return () -> {
+            target.force(false);
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.write(temp, data);
+            TownStorage.moveAtomically(temp, snapshotFile);
+        };
+    }
+
+    /**
+     * Final snapshot. The file is closed once the storage thread has written it.
+     */
+    public void shutdown() throws IOException {
+        if (channel == null) return;
+        TownStorageBackend.PendingWrite snapshot = snapshot();
+        FileChannel target = channel;
+        channel = null;
+        TownStorage.submitWrite(() -> {
+            try {
+                snapshot.write();
+            } finally {
+                target.close();
+            }
+        });
+    }
+
+    // ========================================================================
+    // ENCODING
+    // ========================================================================
+
+    /**
+     * Reads one record at the buffer's position.
+     *
+     * @return null if it fails its check (torn or never written)
+     */
+    private static Entry decode(ByteBuffer buf) {
+        int type = buf.getInt();
+        int check = buf.getInt();
+        long time = buf.getLong();
+        long amount = buf.getLong();
+        long balance = buf.getLong();
+        long previous = buf.getLong();
+        long townMsb = buf.getLong();
+        long townLsb = buf.getLong();
+        long otherMsb = buf.getLong();
+        long otherLsb = buf.getLong();
+
+        Type[] types = Type.values();
+        if (type < 0 || type >= types.length) return null;
+        if (check != check(type, time, amount, balance, previous, townMsb, townLsb, otherMsb, otherLsb)) return null;
+
+        UUID counterparty = otherMsb == 0L && otherLsb == 0L ? null : new UUID(otherMsb, otherLsb);
+        return new Entry(types[type], time, amount, balance, previous, new UUID(townMsb, townLsb), counterparty);
+    }
+
+    /**
+     * Never 0 for an all-zero record, so zero-filled space after a crash is rejected.
+     */
+    private static int check(int type, long... values) {
+        long hash = 0x9E3779B97F4A7C15L * (type + 1);
+        for (long value : values) {
+            hash = (hash ^ value) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return (int) (hash ^ (hash >>> 32)) | 1;
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position);
+            if (read < 0) throw new EOFException("Unexpected end of " + file.getFileName());
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.feudal.town;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary layout: a single gzip-compressed towns.dat.
+ *
+ * File format (all integers big-endian, "var" = LEB128 varint):
+ *  - int magic "FDTS", int format version
+ *  - dimension table: var count, then one UTF name per dimension index
+ *  - towns: var count, then per town a var length + record bytes
+ *  - players: var count, then per player: uuid, byte hasTown, [town uuid], byte rank ordinal
+ *
+ * Town record: uuid, name, leader, description, motd, publicJoin, bankGold,
+ * citizens and officers (v2+) as raw UUID longs, per dimension the sorted packed chunk keys,
+ * delta + zigzag + varint encoded (neighbouring chunks cost one or two bytes), and (v3+) the
+ * wars the town declared, each with its contested chunks, (v4+) the liege and (v5+) the faction.
+ *
+ * Town records are encoded on the server thread only when dirty and cached as bytes;
+ * the writer thread just concatenates them and compresses.
+ */
+class BinaryBackend implements TownStorageBackend {
+
+    private static final int MAGIC = 0x46445453; // "FDTS"
+    private static final int FORMAT_VERSION = 5; // 2: officers, 3: wars, 4: liege, 5: faction
+
+    private final Path file;
+
+    // Encoded town records, dimensions stored as ClaimDimensions runtime ids. Server thread only.
+    private final Map<UUID, byte[]> townCache = new HashMap<>();
+    private int lastPlayerCount = -1;
+
+    BinaryBackend(Path dir) {
+        this.file = dir.resolve("towns.dat");
+    }
+
+    @Override
+    public String describe() {
+        return "binary (" + file.getFileName() + ")";
+    }
+
+    @Override
+    public boolean hasData() {
+        return Files.exists(file);
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        return TownStorage.sizeOf(file);
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    @Override
+    public void load(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) throws IOException {
+        townCache.clear();
+        lastPlayerCount = -1;
+
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw, 1 << 16), 1 << 16))) {
+
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a Feudalism data file");
+            int version = in.readInt();
+            if (version > FORMAT_VERSION) {
+                throw new IOException(file + " was written by a newer version (format " + version + ")");
+            }
+
+            // file dimension index -> runtime id
+            int[] dimensions = new int[readVarInt(in)];
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensions[i] = ClaimDimensions.intern(in.readUTF());
+            }
+
+            int townCount = readVarInt(in);
+            for (int i = 0; i < townCount; i++) {
+                byte[] record = new byte[readVarInt(in)];
+                in.readFully(record);
+                Town town = readTown(new DataInputStream(new ByteArrayInputStream(record)), version, dimensions);
+                towns.put(town.getId(), town);
+            }
+
+            int playerCount = readVarInt(in);
+            TownRank[] ranks = TownRank.values();
+            for (int i = 0; i < playerCount; i++) {
+                UUID id = readUuid(in);
+                TownPlayerData data = new TownPlayerData();
+                if (in.readBoolean()) data.setTownId(readUuid(in));
+                data.setRank(ranks[in.readUnsignedByte()]);
+                data.clearDirty();
+                players.put(id, data);
+            }
+        }
+    }
+
+    private static Town readTown(DataInput in, int version, int[] dimensions) throws IOException {
+        Town town = new Town();
+        town.setId(readUuid(in));
+        town.setName(in.readUTF());
+        if (in.readBoolean()) town.setLeader(readUuid(in));
+        town.setDescription(in.readUTF());
+        town.setMotd(in.readUTF());
+        town.setPublicJoin(in.readBoolean());
+        town.setBankGold(in.readLong());
+
+        int citizens = readVarInt(in);
+        for (int i = 0; i < citizens; i++) {
+            town.getCitizens().add(readUuid(in));
+        }
+
+        if (version >= 2) {
+            int officers = readVarInt(in);
+            for (int i = 0; i < officers; i++) {
+                town.setOfficer(readUuid(in), true);
+            }
+        }
+
+        // Not registered with TownManager yet, so fill the set directly (no claim index updates)
+        ClaimSet claims = town.getClaims();
+        int dimensionCount = readVarInt(in);
+        for (int d = 0; d < dimensionCount; d++) {
+            int dimensionId = dimensions[readVarInt(in)];
+            int count = readVarInt(in);
+            long key = 0L;
+            for (int i = 0; i < count; i++) {
+                key += zigzagDecode(readVarLong(in));
+                claims.add(dimensionId, key);
+            }
+        }
+
+        if (version >= 3) {
+            WarState.Phase[] phases = WarState.Phase.values();
+            int wars = readVarInt(in);
+            for (int w = 0; w < wars; w++) {
+                WarState war = new WarState(readUuid(in), 0);
+                war.setPhase(phases[in.readUnsignedByte()]);
+                war.setTicksLeft(readVarInt(in));
+                war.setAttackerScore(readVarInt(in));
+                war.setDefenderScore(readVarInt(in));
+                int contests = readVarInt(in);
+                for (int c = 0; c < contests; c++) {
+                    WarState.Contest contest = new WarState.Contest(in.readUTF(), in.readInt(), in.readInt());
+                    contest.setProgress(readVarInt(in));
+                    war.getContested().add(contest);
+                }
+                town.getWars().add(war);
+            }
+        }
+
+        if (version >= 4 && in.readBoolean()) town.setLiege(readUuid(in));
+        if (version >= 5 && in.readBoolean()) town.loadFaction(in.readUTF(), in.readBoolean());
+
+        town.clearDirty();
+        return town;
+    }
+
+    // ========================================================================
+    // SAVING
+    // ========================================================================
+
+    @Override
+    public void invalidate() {
+        lastPlayerCount = -1; // the cached records are current, this just forces the write
+    }
+
+    @Override
+    public PendingWrite snapshot(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        boolean changed = townCache.size() != towns.size() || lastPlayerCount != players.size();
+
+        for (Map.Entry<UUID, Town> entry : towns.entrySet()) {
+            Town town = entry.getValue();
+            if (town.isDirty() || !townCache.containsKey(entry.getKey())) {
+                townCache.put(entry.getKey(), encodeTown(town));
+                town.clearDirty();
+                changed = true;
+            }
+        }
+
+        for (TownPlayerData data : players.values()) {
+            if (data.isDirty()) {
+                changed = true;
+                break;
+            }
+        }
+
+        if (!changed) return null;
+
+        townCache.keySet().retainAll(towns.keySet()); // disbanded towns
+        byte[][] townRecords = townCache.values().toArray(new byte[0][]);
+
+        // Players are tiny, so copy them flat instead of caching per record
+        int playerCount = players.size();
+        long[] playerIds = new long[playerCount * 2];
+        long[] townIds = new long[playerCount * 2];
+        byte[] flags = new byte[playerCount];
+        byte[] ranks = new byte[playerCount];
+        int i = 0;
+        for (Map.Entry<UUID, TownPlayerData> entry : players.entrySet()) {
+            TownPlayerData data = entry.getValue();
+            playerIds[i * 2] = entry.getKey().getMostSignificantBits();
+            playerIds[i * 2 + 1] = entry.getKey().getLeastSignificantBits();
+            if (data.hasTown()) {
+                flags[i] = 1;
+                townIds[i * 2] = data.getTownId().getMostSignificantBits();
+                townIds[i * 2 + 1] = data.getTownId().getLeastSignificantBits();
+            }
+            ranks[i] = (byte) (data.getRank() == null ? TownRank.CITIZEN : data.getRank()).ordinal();
+            data.clearDirty();
+            i++;
+        }
+        lastPlayerCount = playerCount;
+
+        String[] dimensionNames = new String[ClaimDimensions.count()];
+        for (int d = 0; d < dimensionNames.length; d++) {
+            dimensionNames[d] = ClaimDimensions.name(d);
+        }
+
+        return () -> {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream raw = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(raw, 1 << 16), 1 << 16))) {
+
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+
+                writeVarInt(out, dimensionNames.length);
+                for (String name : dimensionNames) out.writeUTF(name);
+
+                writeVarInt(out, townRecords.length);
+                for (byte[] record : townRecords) {
+                    writeVarInt(out, record.length);
+                    out.write(record);
+                }
+
+                writeVarInt(out, playerCount);
+                for (int p = 0; p < playerCount; p++) {
+                    out.writeLong(playerIds[p * 2]);
+                    out.writeLong(playerIds[p * 2 + 1]);
+                    out.writeBoolean(flags[p] != 0);
+                    if (flags[p] != 0) {
+                        out.writeLong(townIds[p * 2]);
+                        out.writeLong(townIds[p * 2 + 1]);
+                    }
+                    out.writeByte(ranks[p]);
+                }
+            }
+            TownStorage.moveAtomically(temp, file);
+        };
+    }
+
+    private static byte[] encodeTown(Town town) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + town.getClaims().size() * 2);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writeUuid(out, town.getId());
+            out.writeUTF(town.getName() == null ? "" : town.getName());
+            out.writeBoolean(town.getLeader() != null);
+            if (town.getLeader() != null) writeUuid(out, town.getLeader());
+            out.writeUTF(town.getDescription());
+            out.writeUTF(town.getMotd());
+            out.writeBoolean(town.isPublicJoin());
+            out.writeLong(town.getBankGold());
+
+            writeVarInt(out, town.getCitizens().size());
+            for (UUID citizen : town.getCitizens()) writeUuid(out, citizen);
+
+            writeVarInt(out, town.getOfficers().size());
+            for (UUID officer : town.getOfficers()) writeUuid(out, officer);
+
+            ClaimSet claims = town.getClaims();
+            int[] dimensionIds = claims.dimensionIds();
+            writeVarInt(out, dimensionIds.length);
+            for (int dimensionId : dimensionIds) {
+                long[] keys = claims.chunkKeys(dimensionId);
+                Arrays.sort(keys);
+                writeVarInt(out, dimensionId);
+                writeVarInt(out, keys.length);
+                long previous = 0L;
+                for (long key : keys) {
+                    writeVarLong(out, zigzagEncode(key - previous));
+                    previous = key;
+                }
+            }
+
+            writeVarInt(out, town.getWars().size());
+            for (WarState war : town.getWars()) {
+                writeUuid(out, war.getDefender());
+                out.writeByte(war.getPhase().ordinal());
+                writeVarInt(out, war.getTicksLeft());
+                writeVarInt(out, war.getAttackerScore());
+                writeVarInt(out, war.getDefenderScore());
+                writeVarInt(out, war.getContested().size());
+                for (WarState.Contest contest : war.getContested()) {
+                    out.writeUTF(contest.getDimension());
+                    out.writeInt(contest.getChunkX());
+                    out.writeInt(contest.getChunkZ());
+                    writeVarInt(out, contest.getProgress());
+                }
+            }
+
+            out.writeBoolean(town.getLiege() != null);
+            if (town.getLiege() != null) writeUuid(out, town.getLiege());
+
+            out.writeBoolean(town.getFactionName() != null);
+            if (town.getFactionName() != null) {
+                out.writeUTF(town.getFactionName());
+                out.writeBoolean(town.isFactionLeader());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("ByteArrayOutputStream cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ========================================================================
+    // MIGRATION
+    // ========================================================================
+
+    @Override
+    public void retire() throws IOException {
+        if (Files.exists(file)) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ========================================================================
+    // ENCODING HELPERS
+    // ========================================================================
+
+    private static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarLong too long");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.feudal.town;
+
+import com.example.feudal.config.FeudalConfig;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Claims / unclaims many chunks at once.
+ *
+ * Every batch is validated in one pass over ClaimIndex (one primitive lookup per chunk)
+ * before anything changes; then it is applied as a whole or not at all.
+ *  - Chunks the town already owns are counted and skipped
+ *  - Chunks of other towns are counted and skipped (never taken over)
+ *  - The batch fails if it would go over the claim limit or town_claims.MAX_BULK_CLAIM_CHUNKS,
+ *    or (with CONTIGUOUS_CLAIMS) add a separate area
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ */
+public final class BulkClaims {
+
+    public enum Outcome {
+        CLAIMED,
+        NOTHING_TO_CLAIM,
+        TOO_LARGE,
+        OVER_LIMIT,
+        NOT_CONTIGUOUS,
+        NOT_ENCLOSED
+    }
+
+    /**
+     * Summary of one batch, for the command feedback.
+     */
+    public static final class Result {
+        private Outcome outcome;
+        private int claimed;
+        private int alreadyOwned;
+        private int takenByOthers;
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public int getClaimed() {
+            return claimed;
+        }
+
+        public int getAlreadyOwned() {
+            return alreadyOwned;
+        }
+
+        public int getTakenByOthers() {
+            return takenByOthers;
+        }
+
+        private Result fail(Outcome outcome) {
+            this.outcome = outcome;
+            this.claimed = 0;
+            return this;
+        }
+    }
+
+    private BulkClaims() {
+    }
+
+    /**
+     * Claims every chunk in the rectangle (chunk coordinates, inclusive, any corner order).
+     */
+    public static Result claimRect(Town town, int dimensionId, int x1, int z1, int x2, int z2) {
+        Result result = new Result();
+        int minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+        int minZ = Math.min(z1, z2), maxZ = Math.max(z1, z2);
+        long area = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+        if (area > FeudalConfig.MAX_BULK_CLAIM_CHUNKS.get()) return result.fail(Outcome.TOO_LARGE);
+
+        LongArrayList fresh = new LongArrayList((int) area);
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                long key = ClaimPos.chunkKey(x, z);
+                Town owner = ClaimIndex.get(dimensionId, key);
+                if (owner == town) result.alreadyOwned++;
+                else if (owner != null) result.takenByOthers++;
+                else fresh.add(key);
+            }
+        }
+        return apply(town, dimensionId, fresh, result);
+    }
+
+    /**
+     * Claims the unclaimed pocket around (chunkX, chunkZ) that is fully enclosed by the
+     * town's claims. Other towns' chunks inside it are walls and stay theirs.
+     */
+    public static Result claimFill(Town town, int dimensionId, int chunkX, int chunkZ) {
+        Result result = new Result();
+        long start = ClaimPos.chunkKey(chunkX, chunkZ);
+        if (ClaimIndex.get(dimensionId, start) != null) return result.fail(Outcome.NOTHING_TO_CLAIM);
+
+        // Anything reaching past the town's bounding box is not enclosed
+        long[] owned = town.getClaims().chunkKeys(dimensionId);
+        if (owned.length == 0) return result.fail(Outcome.NOT_ENCLOSED);
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+        for (long key : owned) {
+            int x = ClaimPos.chunkX(key);
+            int z = ClaimPos.chunkZ(key);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        int max = FeudalConfig.MAX_BULK_CLAIM_CHUNKS.get();
+        LongOpenHashSet seen = new LongOpenHashSet();
+        LongArrayList fresh = new LongArrayList();
+        seen.add(start);
+        fresh.add(start);
+        for (int head = 0; head < fresh.size(); head++) {
+            long current = fresh.getLong(head);
+            int x = ClaimPos.chunkX(current);
+            int z = ClaimPos.chunkZ(current);
+            if (x <= minX || x >= maxX || z <= minZ || z >= maxZ) return result.fail(Outcome.NOT_ENCLOSED);
+
+            for (long next : new long[]{
+                    ClaimPos.chunkKey(x + 1, z), ClaimPos.chunkKey(x - 1, z),
+                    ClaimPos.chunkKey(x, z + 1), ClaimPos.chunkKey(x, z - 1)}) {
+                if (!seen.add(next)) continue;
+                Town owner = ClaimIndex.get(dimensionId, next);
+                if (owner == null) {
+                    fresh.add(next);
+                    if (fresh.size() > max) return result.fail(Outcome.TOO_LARGE);
+                } else if (owner != town) {
+                    result.takenByOthers++;
+                }
+            }
+        }
+        return apply(town, dimensionId, fresh, result);
+    }
+
+    /**
+     * Drops every claim of the town in every dimension.
+     *
+     * @return the number of chunks unclaimed
+     */
+    public static int unclaimAll(Town town) {
+        int count = town.getClaims().size();
+        if (count > 0) town.setClaims(new ClaimSet());
+        return count;
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private static Result apply(Town town, int dimensionId, LongArrayList fresh, Result result) {
+        if (fresh.isEmpty()) return result.fail(Outcome.NOTHING_TO_CLAIM);
+        if (town.getClaims().size() + fresh.size() > TownManager.getClaimLimit(town)) {
+            return result.fail(Outcome.OVER_LIMIT);
+        }
+
+        boolean contiguous = FeudalConfig.CONTIGUOUS_CLAIMS.get();
+        int areasBefore = 0;
+        if (contiguous) {
+            // A town's first land in a dimension may form one new area
+            areasBefore = Math.max(1, town.getConnectivity(dimensionId).componentCount());
+        }
+
+        for (int i = 0; i < fresh.size(); i++) {
+            town.addClaim(dimensionId, fresh.getLong(i));
+        }
+
+        if (contiguous && town.getConnectivity(dimensionId).componentCount() > areasBefore) {
+            for (int i = 0; i < fresh.size(); i++) {
+                town.removeClaim(dimensionId, fresh.getLong(i));
+            }
+            return result.fail(Outcome.NOT_CONTIGUOUS);
+        }
+
+        result.outcome = Outcome.CLAIMED;
+        result.claimed = fresh.size();
+        return result;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.feudal.town;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Connected areas of one town's claims in one dimension (chunks sharing a side).
+ *
+ * A union-find over packed chunk keys, kept in step by Town.addClaim/removeClaim:
+ *  - a claim is a union with its claimed neighbours (amortized near O(1))
+ *  - an unclaim that cannot split anything (its neighbours still touch each other around
+ *    it, checked on the 8 surrounding chunks) only decrements a size; the chunk stays in
+ *    the forest as a "ghost" so paths through it keep working
+ *  - an unclaim that might split the area, a ghost being claimed again, or too many
+ *    ghosts mark the structure stale, and the next query rebuilds it in O(claims)
+ *
+ * isAdjacentToClaim and wouldSplit read the ClaimSet directly and never rebuild.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Get it from Town.getConnectivity(); it is built on first use
+ */
+public final class ClaimConnectivity {
+
+    // Side neighbours at even indices, the corner between two of them in between
+    private static final int[] RING_X = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] RING_Z = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private final ClaimSet claims;
+    private final int dimensionId;
+
+    private final Long2LongOpenHashMap parent = new Long2LongOpenHashMap();
+    private final Long2IntOpenHashMap size = new Long2IntOpenHashMap(); // root -> claimed chunks
+
+    private int components;
+    private int ghosts;
+    private boolean stale = true;
+
+    ClaimConnectivity(ClaimSet claims, int dimensionId) {
+        this.claims = claims;
+        this.dimensionId = dimensionId;
+    }
+
+    // ========================================================================
+    // QUERIES
+    // ========================================================================
+
+    /**
+     * @return number of separate claimed areas in this dimension
+     */
+    public int componentCount() {
+        ensureBuilt();
+        return components;
+    }
+
+    /**
+     * @return claimed chunks in the area containing the chunk, or 0 if it is not claimed
+     */
+    public int componentSize(long chunkKey) {
+        if (!claimed(chunkKey)) return 0;
+        ensureBuilt();
+        return size.get(find(chunkKey));
+    }
+
+    public boolean sameComponent(long a, long b) {
+        if (!claimed(a) || !claimed(b)) return false;
+        ensureBuilt();
+        return find(a) == find(b);
+    }
+
+    /**
+     * True if a chunk shares a side with one of the town's claims. O(1).
+     */
+    public boolean isAdjacentToClaim(long chunkKey) {
+        int x = ClaimPos.chunkX(chunkKey);
+        int z = ClaimPos.chunkZ(chunkKey);
+        return claimed(x + 1, z) || claimed(x - 1, z) || claimed(x, z + 1) || claimed(x, z - 1);
+    }
+
+    /**
+     * True if unclaiming the chunk would cut its area in two. Answered from the 8
+     * surrounding chunks in O(1) in most cases; only when the neighbours are not
+     * connected around the chunk does it search the area for another path.
+     */
+    public boolean wouldSplit(long chunkKey) {
+        if (!claimed(chunkKey) || neighbourGroups(chunkKey) <= 1) return false;
+
+        int x = ClaimPos.chunkX(chunkKey);
+        int z = ClaimPos.chunkZ(chunkKey);
+        LongOpenHashSet targets = new LongOpenHashSet(4);
+        for (int i = 0; i < 8; i += 2) {
+            if (claimed(x + RING_X[i], z + RING_Z[i])) targets.add(ClaimPos.chunkKey(x + RING_X[i], z + RING_Z[i]));
+        }
+
+        // Search from one neighbour, without passing through the chunk, until all others are seen
+        long start = targets.iterator().nextLong();
+        LongOpenHashSet seen = new LongOpenHashSet();
+        LongArrayList queue = new LongArrayList();
+        seen.add(chunkKey);
+        seen.add(start);
+        queue.add(start);
+        int remaining = targets.size() - 1;
+        for (int head = 0; head < queue.size(); head++) {
+            long current = queue.getLong(head);
+            int cx = ClaimPos.chunkX(current);
+            int cz = ClaimPos.chunkZ(current);
+            for (int i = 0; i < 8; i += 2) {
+                long next = ClaimPos.chunkKey(cx + RING_X[i], cz + RING_Z[i]);
+                if (!claimed(next) || !seen.add(next)) continue;
+                if (targets.contains(next) && --remaining == 0) return false;
+                queue.add(next);
+            }
+        }
+        return true;
+    }
+
+    // ========================================================================
+    // UPDATES (called by Town after its ClaimSet changed)
+    // ========================================================================
+
+    void added(long chunkKey) {
+        if (stale) return;
+        if (parent.containsKey(chunkKey)) {
+            stale = true; // a ghost coming back; its old links may no longer be true
+            return;
+        }
+
+        parent.put(chunkKey, chunkKey);
+        size.put(chunkKey, 1);
+        components++;
+
+        int x = ClaimPos.chunkX(chunkKey);
+        int z = ClaimPos.chunkZ(chunkKey);
+        for (int i = 0; i < 8; i += 2) {
+            long neighbour = ClaimPos.chunkKey(x + RING_X[i], z + RING_Z[i]);
+            if (claimed(neighbour)) union(chunkKey, neighbour);
+        }
+    }
+
+    void removed(long chunkKey) {
+        if (stale) return;
+
+        int groups = neighbourGroups(chunkKey);
+        if (groups > 1 || ++ghosts > claims.size() + 16) {
+            stale = true; // may have split / mostly ghosts: rebuild on the next query
+            return;
+        }
+
+        long root = find(chunkKey);
+        int remaining = size.get(root) - 1;
+        if (remaining == 0) {
+            components--; // was a lone chunk
+        }
+        size.put(root, remaining);
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private boolean claimed(long chunkKey) {
+        return claims.contains(dimensionId, chunkKey);
+    }
+
+    private boolean claimed(int chunkX, int chunkZ) {
+        return claimed(ClaimPos.chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Number of groups the claimed side neighbours form when only the 8 surrounding
+     * chunks may connect them. Two adjacent side neighbours are joined by the corner
+     * chunk between them.
+     */
+    private int neighbourGroups(long chunkKey) {
+        int x = ClaimPos.chunkX(chunkKey);
+        int z = ClaimPos.chunkZ(chunkKey);
+        boolean[] ring = new boolean[8];
+        for (int i = 0; i < 8; i++) {
+            ring[i] = claimed(x + RING_X[i], z + RING_Z[i]);
+        }
+
+        int present = 0;
+        int links = 0;
+        for (int i = 0; i < 8; i += 2) {
+            if (!ring[i]) continue;
+            present++;
+            if (ring[i + 1] && ring[(i + 2) & 7]) links++;
+        }
+        return present == 0 ? 0 : Math.max(1, present - links);
+    }
+
+    private void ensureBuilt() {
+        if (!stale) return;
+
+        parent.clear();
+        size.clear();
+        ghosts = 0;
+        long[] keys = claims.chunkKeys(dimensionId);
+        components = keys.length;
+        for (long key : keys) {
+            parent.put(key, key);
+            size.put(key, 1);
+        }
+        for (long key : keys) {
+            int x = ClaimPos.chunkX(key);
+            int z = ClaimPos.chunkZ(key);
+            long east = ClaimPos.chunkKey(x + 1, z);
+            long south = ClaimPos.chunkKey(x, z + 1);
+            if (claimed(east)) union(key, east);
+            if (claimed(south)) union(key, south);
+        }
+        stale = false;
+    }
+
+    private long find(long chunkKey) {
+        long current = chunkKey;
+        long up = parent.get(current);
+        while (up != current) {
+            long grand = parent.get(up);
+            parent.put(current, grand); // path halving
+            current = grand;
+            up = parent.get(current);
+        }
+        return current;
+    }
+
+    private void union(long a, long b) {
+        long rootA = find(a);
+        long rootB = find(b);
+        if (rootA == rootB) return;
+
+        int sizeA = size.get(rootA);
+        int sizeB = size.get(rootB);
+        if (sizeA < sizeB) {
+            long swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent.put(rootB, rootA);
+        size.put(rootA, sizeA + sizeB);
+        size.remove(rootB);
+        components--;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.feudal.town;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Small integer registry for dimension resource locations.
+ *
+ * Claims store an int id instead of the "minecraft:overworld" string.
+ * Ids are assigned in first-seen order and only live for this server run;
+ * they are never written to disk (storage keeps the resource location string).
+ */
+public final class ClaimDimensions {
+
+    private static final Object2IntOpenHashMap<String> IDS = new Object2IntOpenHashMap<>();
+    private static String[] NAMES = new String[4];
+    private static int count = 0;
+
+    static {
+        IDS.defaultReturnValue(-1);
+    }
+
+    private ClaimDimensions() {
+    }
+
+    /**
+     * Returns the id for a dimension, assigning a new one if it was never seen.
+     * Synchronized because storage may parse town files on several threads at startup.
+     */
+    public static synchronized int intern(String dimension) {
+        int id = IDS.getInt(dimension);
+        if (id >= 0) return id;
+
+        id = count++;
+        if (id == NAMES.length) {
+            NAMES = Arrays.copyOf(NAMES, id * 2);
+        }
+        NAMES[id] = dimension;
+        IDS.put(dimension, id);
+        return id;
+    }
+
+    /**
+     * Returns the id for a dimension, or -1 if no claim ever used it.
+     * Never allocates, so it is safe on the per-event hot path.
+     */
+    public static int lookup(String dimension) {
+        return IDS.getInt(dimension);
+    }
+
+    public static String name(int id) {
+        return NAMES[id];
+    }
+
+    public static int count() {
+        return count;
+    }
+}
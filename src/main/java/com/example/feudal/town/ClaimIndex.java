@@ -0,0 +1,106 @@
+package com.example.feudal.town;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Global chunk -> town lookup.
+ *
+ * One primitive long-keyed map per dimension id (see ClaimDimensions), keyed by
+ * ClaimPos.chunkKey(x, z). Lookups do not allocate, so they are safe to run from
+ * per-block event handlers.
+ *
+ * IMPORTANT:
+ *  - Kept in step by Town.addClaim/removeClaim and TownManager (setTownMap, removeTown)
+ *  - Never mutate Town.getClaims() directly, or the index goes stale
+ *  - Every mutation bumps AccessEpoch, so cached protection decisions are dropped
+ */
+public final class ClaimIndex {
+
+    @SuppressWarnings("unchecked")
+    private static Long2ObjectOpenHashMap<Town>[] BY_DIMENSION = new Long2ObjectOpenHashMap[4];
+
+    private ClaimIndex() {
+    }
+
+    // ========================================================================
+    // LOOKUP
+    // ========================================================================
+
+    public static Town get(String dimension, int chunkX, int chunkZ) {
+        int dimensionId = ClaimDimensions.lookup(dimension);
+        if (dimensionId < 0) return null; // nobody ever claimed in this dimension
+        return get(dimensionId, ClaimPos.chunkKey(chunkX, chunkZ));
+    }
+
+    public static Town get(int dimensionId, long chunkKey) {
+        if (dimensionId >= BY_DIMENSION.length) return null;
+        Long2ObjectOpenHashMap<Town> chunks = BY_DIMENSION[dimensionId];
+        return chunks == null ? null : chunks.get(chunkKey);
+    }
+
+    /**
+     * Cheap pre-check for handlers that would otherwise look up many chunks.
+     */
+    public static boolean hasClaims(int dimensionId) {
+        if (dimensionId >= BY_DIMENSION.length) return false;
+        Long2ObjectOpenHashMap<Town> chunks = BY_DIMENSION[dimensionId];
+        return chunks != null && !chunks.isEmpty();
+    }
+
+    public static int size() {
+        int total = 0;
+        for (Long2ObjectOpenHashMap<Town> chunks : BY_DIMENSION) {
+            if (chunks != null) total += chunks.size();
+        }
+        return total;
+    }
+
+    // ========================================================================
+    // MUTATION (package-private, driven by Town / TownManager)
+    // ========================================================================
+
+    static void put(int dimensionId, long chunkKey, Town town) {
+        if (dimensionId >= BY_DIMENSION.length) {
+            BY_DIMENSION = Arrays.copyOf(BY_DIMENSION, Math.max(dimensionId + 1, BY_DIMENSION.length * 2));
+        }
+        Long2ObjectOpenHashMap<Town> chunks = BY_DIMENSION[dimensionId];
+        if (chunks == null) {
+            chunks = new Long2ObjectOpenHashMap<>();
+            BY_DIMENSION[dimensionId] = chunks;
+        }
+        chunks.put(chunkKey, town);
+        AccessEpoch.bump();
+    }
+
+    /**
+     * Removes the entry only if it still points at the given town,
+     * so a stale unclaim can never drop another town's chunk.
+     */
+    static void remove(int dimensionId, long chunkKey, Town town) {
+        if (dimensionId >= BY_DIMENSION.length) return;
+        Long2ObjectOpenHashMap<Town> chunks = BY_DIMENSION[dimensionId];
+        if (chunks != null && chunks.get(chunkKey) == town) {
+            chunks.remove(chunkKey);
+            AccessEpoch.bump();
+        }
+    }
+
+    static void addAll(Town town) {
+        town.getClaims().forEachClaim((dimensionId, chunkKey) -> put(dimensionId, chunkKey, town));
+    }
+
+    static void removeAll(Town town) {
+        town.getClaims().forEachClaim((dimensionId, chunkKey) -> remove(dimensionId, chunkKey, town));
+    }
+
+    static void rebuild(Collection<Town> towns) {
+        Arrays.fill(BY_DIMENSION, null);
+        AccessEpoch.bump();
+        for (Town town : towns) {
+            addAll(town);
+        }
+    }
+}
@@ -1,55 +1,79 @@
 package com.example.feudal.town;
 
-import java.util.Objects;
-
 /**
  * Represents a claimed chunk in a specific dimension.
- * Dimension is stored as a string resource location, e.g. "minecraft:overworld".
+ *
+ * Immutable. The dimension is held as an interned id (see ClaimDimensions) and the
+ * chunk coordinates are packed into one long, so equals/hashCode never allocate.
+ * getDimension() still returns the resource location string, e.g. "minecraft:overworld".
+ *
+ * Towns do not store ClaimPos objects any more (see ClaimSet); this is a value
+ * handed out to callers that want one claim at a time.
  */
-public class ClaimPos {
+public final class ClaimPos {
 
-    private String dimension; // resource location string
-    private int chunkX;
-    private int chunkZ;
+    private final int dimensionId;
+    private final long chunkKey;
 
-    // Required for Gson
-    public ClaimPos() {
+    public ClaimPos(String dimension, int chunkX, int chunkZ) {
+        this(ClaimDimensions.intern(dimension), chunkKey(chunkX, chunkZ));
     }
 
-    public ClaimPos(String dimension, int chunkX, int chunkZ) {
-        this.dimension = dimension;
-        this.chunkX = chunkX;
-        this.chunkZ = chunkZ;
+    public ClaimPos(int dimensionId, long chunkKey) {
+        this.dimensionId = dimensionId;
+        this.chunkKey = chunkKey;
     }
 
     public String getDimension() {
-        return dimension;
+        return ClaimDimensions.name(dimensionId);
+    }
+
+    public int getDimensionId() {
+        return dimensionId;
     }
 
     public int getChunkX() {
-        return chunkX;
+        return chunkX(chunkKey);
     }
 
     public int getChunkZ() {
-        return chunkZ;
+        return chunkZ(chunkKey);
+    }
+
+    /**
+     * Packs chunk coordinates into one long (x in the low 32 bits, z in the high 32 bits).
+     * Same layout as vanilla ChunkPos.asLong, without touching Minecraft classes.
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) (chunkKey >>> 32);
+    }
+
+    public long getChunkKey() {
+        return chunkKey;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof ClaimPos claimPos)) return false;
-        return chunkX == claimPos.chunkX &&
-                chunkZ == claimPos.chunkZ &&
-                Objects.equals(dimension, claimPos.dimension);
+        return chunkKey == claimPos.chunkKey && dimensionId == claimPos.dimensionId;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dimension, chunkX, chunkZ);
+        return 31 * dimensionId + Long.hashCode(chunkKey * 0x9E3779B97F4A7C15L);
     }
 
     @Override
     public String toString() {
-        return dimension + " [" + chunkX + ", " + chunkZ + "]";
+        return getDimension() + " [" + getChunkX() + ", " + getChunkZ() + "]";
     }
 }
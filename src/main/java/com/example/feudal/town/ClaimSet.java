@@ -0,0 +1,246 @@
+package com.example.feudal.town;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Compact set of claimed chunks for one town.
+ *
+ * One open-addressing LongOpenHashSet of packed chunk keys per dimension id,
+ * roughly 8-16 bytes per claim instead of a ClaimPos + HashMap node.
+ *
+ * Still a Set<ClaimPos> so existing callers keep working; iterating through that
+ * view allocates a ClaimPos per element, so hot paths should use the primitive
+ * contains/forEachClaim methods instead.
+ *
+ * The Set<ClaimPos> view is read-only: claims change through Town.addClaim/removeClaim,
+ * which keep ClaimIndex, connectivity and faction totals in step. add/remove(int, long)
+ * are package-private for the storage backends filling a town before it is indexed.
+ *
+ * GsonAdapter reads/writes the same array-of-{dimension, chunkX, chunkZ} format
+ * as the old HashSet<ClaimPos>, so existing towns.json files keep loading.
+ * It has to be attached with a field-level @JsonAdapter: Gson's collection
+ * factory runs before class-level annotations are looked at.
+ */
+public class ClaimSet extends AbstractSet<ClaimPos> {
+
+    @FunctionalInterface
+    public interface ClaimConsumer {
+        void accept(int dimensionId, long chunkKey);
+    }
+
+    private final Int2ObjectOpenHashMap<LongOpenHashSet> byDimension = new Int2ObjectOpenHashMap<>(2);
+    private int size = 0;
+
+    public ClaimSet() {
+    }
+
+    public ClaimSet(Collection<ClaimPos> claims) {
+        for (ClaimPos pos : claims) {
+            add(pos.getDimensionId(), pos.getChunkKey());
+        }
+    }
+
+    // ========================================================================
+    // PRIMITIVE API
+    // ========================================================================
+
+    public boolean contains(int dimensionId, long chunkKey) {
+        LongOpenHashSet chunks = byDimension.get(dimensionId);
+        return chunks != null && chunks.contains(chunkKey);
+    }
+
+    boolean add(int dimensionId, long chunkKey) {
+        LongOpenHashSet chunks = byDimension.get(dimensionId);
+        if (chunks == null) {
+            chunks = new LongOpenHashSet();
+            byDimension.put(dimensionId, chunks);
+        }
+        if (!chunks.add(chunkKey)) return false;
+        size++;
+        return true;
+    }
+
+    boolean remove(int dimensionId, long chunkKey) {
+        LongOpenHashSet chunks = byDimension.get(dimensionId);
+        if (chunks == null || !chunks.remove(chunkKey)) return false;
+        if (chunks.isEmpty()) byDimension.remove(dimensionId);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return number of claims in one dimension
+     */
+    public int size(int dimensionId) {
+        LongOpenHashSet chunks = byDimension.get(dimensionId);
+        return chunks == null ? 0 : chunks.size();
+    }
+
+    /**
+     * @return ids of the dimensions this set has claims in
+     */
+    public int[] dimensionIds() {
+        return byDimension.keySet().toIntArray();
+    }
+
+    /**
+     * @return a copy of the packed chunk keys claimed in one dimension
+     */
+    public long[] chunkKeys(int dimensionId) {
+        LongOpenHashSet chunks = byDimension.get(dimensionId);
+        return chunks == null ? new long[0] : chunks.toLongArray();
+    }
+
+    public void forEachClaim(ClaimConsumer consumer) {
+        for (Int2ObjectMap.Entry<LongOpenHashSet> entry : byDimension.int2ObjectEntrySet()) {
+            int dimensionId = entry.getIntKey();
+            LongIterator it = entry.getValue().iterator();
+            while (it.hasNext()) {
+                consumer.accept(dimensionId, it.nextLong());
+            }
+        }
+    }
+
+    // ========================================================================
+    // Set<ClaimPos> VIEW
+    // ========================================================================
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof ClaimPos pos && contains(pos.getDimensionId(), pos.getChunkKey());
+    }
+
+    @Override
+    public boolean add(ClaimPos pos) {
+        throw new UnsupportedOperationException("Use Town.addClaim");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("Use Town.removeClaim");
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super ClaimPos> filter) {
+        throw new UnsupportedOperationException("Use Town.removeClaim");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Use Town.setClaims");
+    }
+
+    @Override
+    public Iterator<ClaimPos> iterator() {
+        return new Iterator<>() {
+            private final Iterator<Int2ObjectMap.Entry<LongOpenHashSet>> dimensions =
+                    byDimension.int2ObjectEntrySet().iterator();
+            private int dimensionId;
+            private LongIterator chunks;
+
+            @Override
+            public boolean hasNext() {
+                while (chunks == null || !chunks.hasNext()) {
+                    if (!dimensions.hasNext()) return false;
+                    Int2ObjectMap.Entry<LongOpenHashSet> entry = dimensions.next();
+                    dimensionId = entry.getIntKey();
+                    chunks = entry.getValue().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public ClaimPos next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new ClaimPos(dimensionId, chunks.nextLong());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Use Town.removeClaim");
+            }
+        };
+    }
+
+    // ========================================================================
+    // GSON
+    // ========================================================================
+
+    public static class GsonAdapter extends TypeAdapter<ClaimSet> {
+
+        @Override
+        public void write(JsonWriter out, ClaimSet set) throws IOException {
+            out.beginArray();
+            for (Int2ObjectMap.Entry<LongOpenHashSet> entry : set.byDimension.int2ObjectEntrySet()) {
+                String dimension = ClaimDimensions.name(entry.getIntKey());
+                LongIterator it = entry.getValue().iterator();
+                while (it.hasNext()) {
+                    long key = it.nextLong();
+                    out.beginObject();
+                    out.name("dimension").value(dimension);
+                    out.name("chunkX").value(ClaimPos.chunkX(key));
+                    out.name("chunkZ").value(ClaimPos.chunkZ(key));
+                    out.endObject();
+                }
+            }
+            out.endArray();
+        }
+
+        @Override
+        public ClaimSet read(JsonReader in) throws IOException {
+            ClaimSet set = new ClaimSet();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return set;
+            }
+
+            in.beginArray();
+            while (in.hasNext()) {
+                String dimension = null;
+                int chunkX = 0;
+                int chunkZ = 0;
+
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "dimension" -> dimension = in.nextString();
+                        case "chunkX" -> chunkX = in.nextInt();
+                        case "chunkZ" -> chunkZ = in.nextInt();
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+
+                if (dimension != null) {
+                    set.add(ClaimDimensions.intern(dimension), ClaimPos.chunkKey(chunkX, chunkZ));
+                }
+            }
+            in.endArray();
+            return set;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.feudal.town;
+
+import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A group of towns, with aggregate statistics that are kept up to date incrementally.
+ *
+ * Member towns report every change to members, claims and bank gold to their faction
+ * (see Town), so reading an aggregate is O(1) and a town joining or leaving costs only
+ * that town's own claims. Territory bounds are tracked per dimension as counted sets of
+ * the claimed chunk columns and rows, so unclaiming an edge chunk shrinks them in
+ * O(log n) instead of rescanning the land.
+ *
+ * IMPORTANT:
+ *  - Server thread only
+ *  - Change membership through manager.FactionManager; it also keeps the persisted
+ *    Town.faction fields in step
+ */
+public final class Faction {
+
+    private final String name;
+    private UUID leaderTown;
+    private final Set<UUID> towns = new LinkedHashSet<>();
+
+    private int members;
+    private int claims;
+    private long bankGold;
+    private final Int2ObjectOpenHashMap<Extent> extents = new Int2ObjectOpenHashMap<>(2);
+
+    /**
+     * Claimed chunk columns and rows of one dimension, counted.
+     */
+    private static final class Extent {
+        final Int2IntRBTreeMap xs = new Int2IntRBTreeMap();
+        final Int2IntRBTreeMap zs = new Int2IntRBTreeMap();
+
+        void add(int x, int z) {
+            xs.addTo(x, 1);
+            zs.addTo(z, 1);
+        }
+
+        void remove(int x, int z) {
+            if (xs.addTo(x, -1) == 1) xs.remove(x);
+            if (zs.addTo(z, -1) == 1) zs.remove(z);
+        }
+
+        boolean isEmpty() {
+            return xs.isEmpty();
+        }
+    }
+
+    public Faction(String name, UUID leaderTown) {
+        this.name = name;
+        this.leaderTown = leaderTown;
+    }
+
+    // ========================================================================
+    // GETTERS
+    // ========================================================================
+
+    public String getName() {
+        return name;
+    }
+
+    public UUID getLeaderTown() {
+        return leaderTown;
+    }
+
+    public Set<UUID> getTowns() {
+        return Collections.unmodifiableSet(towns);
+    }
+
+    public int getMemberCount() {
+        return members;
+    }
+
+    public int getClaimCount() {
+        return claims;
+    }
+
+    public long getBankGold() {
+        return bankGold;
+    }
+
+    public int[] getDimensionIds() {
+        return extents.keySet().toIntArray();
+    }
+
+    /**
+     * @return {minChunkX, minChunkZ, maxChunkX, maxChunkZ} of the faction's land in the
+     *         dimension, or null if it has none there
+     */
+    public int[] getBounds(int dimensionId) {
+        Extent extent = extents.get(dimensionId);
+        if (extent == null) return null;
+        return new int[]{extent.xs.firstIntKey(), extent.zs.firstIntKey(),
+                extent.xs.lastIntKey(), extent.zs.lastIntKey()};
+    }
+
+    // ========================================================================
+    // MEMBERSHIP (called by FactionManager)
+    // ========================================================================
+
+    /**
+     * Adds a town and its statistics. O(town's claims).
+     */
+    public void addTown(Town town) {
+        if (!towns.add(town.getId())) return;
+
+        members += town.getCitizens().size();
+        bankGold += town.getBankGold();
+        addClaims(town.getClaims());
+        town.attachFaction(this);
+    }
+
+    /**
+     * Removes a town and its statistics. O(town's claims).
+     */
+    public void removeTown(Town town) {
+        if (!towns.remove(town.getId())) return;
+
+        members -= town.getCitizens().size();
+        bankGold -= town.getBankGold();
+        removeClaims(town.getClaims());
+        town.attachFaction(null);
+    }
+
+    public void setLeaderTown(Town town) {
+        Town previous = TownManager.getTown(leaderTown);
+        leaderTown = town.getId();
+        if (previous != null && previous != town) previous.markFactionLeader(false);
+        town.markFactionLeader(true);
+    }
+
+    // ========================================================================
+    // UPDATES FROM MEMBER TOWNS
+    // ========================================================================
+
+    void membersChanged(int delta) {
+        members += delta;
+    }
+
+    void bankChanged(long delta) {
+        bankGold += delta;
+    }
+
+    void claimAdded(int dimensionId, long chunkKey) {
+        claims++;
+        Extent extent = extents.get(dimensionId);
+        if (extent == null) {
+            extent = new Extent();
+            extents.put(dimensionId, extent);
+        }
+        extent.add(ClaimPos.chunkX(chunkKey), ClaimPos.chunkZ(chunkKey));
+    }
+
+    void claimRemoved(int dimensionId, long chunkKey) {
+        claims--;
+        Extent extent = extents.get(dimensionId);
+        if (extent == null) return;
+        extent.remove(ClaimPos.chunkX(chunkKey), ClaimPos.chunkZ(chunkKey));
+        if (extent.isEmpty()) extents.remove(dimensionId);
+    }
+
+    void addClaims(ClaimSet set) {
+        for (int dimensionId : set.dimensionIds()) {
+            for (long key : set.chunkKeys(dimensionId)) claimAdded(dimensionId, key);
+        }
+    }
+
+    void removeClaims(ClaimSet set) {
+        for (int dimensionId : set.dimensionIds()) {
+            for (long key : set.chunkKeys(dimensionId)) claimRemoved(dimensionId, key);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.feudal.town;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Single-file layout: towns.json + players.json, each a map of UUID -> record.
+ *
+ * Every file is rewritten in full when anything in it changed, but only dirty
+ * records are re-serialized; the rest reuse the JSON tree cached from the last save.
+ */
+class JsonFileBackend implements TownStorageBackend {
+
+    private final Path townsFile;
+    private final Path playersFile;
+
+    // Last serialized form of every record. Server thread only.
+    private final Map<UUID, JsonElement> townCache = new HashMap<>();
+    private final Map<UUID, JsonElement> playerCache = new HashMap<>();
+    private boolean rewriteAll = false; // set by invalidate()
+
+    JsonFileBackend(Path dir) {
+        this.townsFile = dir.resolve("towns.json");
+        this.playersFile = dir.resolve("players.json");
+    }
+
+    @Override
+    public String describe() {
+        return "JSON (" + townsFile.getFileName() + ", " + playersFile.getFileName() + ")";
+    }
+
+    @Override
+    public boolean hasData() {
+        return Files.exists(townsFile) || Files.exists(playersFile);
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        return TownStorage.sizeOf(townsFile) + TownStorage.sizeOf(playersFile);
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    @Override
+    public void load(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) throws IOException {
+        townCache.clear();
+        playerCache.clear();
+        readFile(townsFile, Town.class, towns, townCache);
+        readFile(playersFile, TownPlayerData.class, players, playerCache);
+    }
+
+    private static <T> void readFile(Path file, Class<T> type, Map<UUID, T> out, Map<UUID, JsonElement> cache)
+            throws IOException {
+        if (!Files.exists(file)) {
+            TownStorage.LOGGER.info("No {} found, starting empty.", file.getFileName());
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(reader);
+            if (root == null || !root.isJsonObject()) return;
+
+            for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject().entrySet()) {
+                try {
+                    UUID id = UUID.fromString(entry.getKey());
+                    out.put(id, TownStorage.GSON.fromJson(entry.getValue(), type));
+                    cache.put(id, entry.getValue()); // unchanged until marked dirty
+                } catch (IllegalArgumentException ex) {
+                    TownStorage.LOGGER.warn("Invalid UUID key '{}' in {} – skipping.", entry.getKey(), file.getFileName());
+                }
+            }
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed " + file.getFileName(), e);
+        }
+    }
+
+    // ========================================================================
+    // SAVING
+    // ========================================================================
+
+    @Override
+    public void invalidate() {
+        // The cached trees match the records, only the files may not
+        rewriteAll = true;
+    }
+
+    @Override
+    public PendingWrite snapshot(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        JsonObject townJson = snapshotTowns(towns);
+        JsonObject playerJson = snapshotPlayers(players);
+        rewriteAll = false;
+        if (townJson == null && playerJson == null) return null;
+
+        return () -> {
+            if (townJson != null) TownStorage.writeAtomically(townsFile, townJson);
+            if (playerJson != null) TownStorage.writeAtomically(playersFile, playerJson);
+        };
+    }
+
+    /**
+     * @return full town map as JSON, or null if nothing changed since the last snapshot
+     */
+    private JsonObject snapshotTowns(Map<UUID, Town> live) {
+        boolean changed = rewriteAll || townCache.size() != live.size();
+
+        for (Map.Entry<UUID, Town> entry : live.entrySet()) {
+            Town town = entry.getValue();
+            if (town.isDirty() || !townCache.containsKey(entry.getKey())) {
+                townCache.put(entry.getKey(), TownStorage.GSON.toJsonTree(town));
+                town.clearDirty();
+                changed = true;
+            }
+        }
+
+        if (!changed) return null;
+
+        townCache.keySet().retainAll(live.keySet()); // disbanded towns
+        return toJson(townCache);
+    }
+
+    private JsonObject snapshotPlayers(Map<UUID, TownPlayerData> live) {
+        boolean changed = rewriteAll || playerCache.size() != live.size();
+
+        for (Map.Entry<UUID, TownPlayerData> entry : live.entrySet()) {
+            TownPlayerData data = entry.getValue();
+            if (data.isDirty() || !playerCache.containsKey(entry.getKey())) {
+                playerCache.put(entry.getKey(), TownStorage.GSON.toJsonTree(data));
+                data.clearDirty();
+                changed = true;
+            }
+        }
+
+        if (!changed) return null;
+
+        playerCache.keySet().retainAll(live.keySet());
+        return toJson(playerCache);
+    }
+
+    /**
+     * Serializes every record into towns.json/players.json under dir without touching
+     * dirty flags, so it never interferes with the active backend. Server thread only.
+     */
+    static PendingWrite export(Path dir, Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        JsonObject townJson = new JsonObject();
+        towns.forEach((id, town) -> townJson.add(id.toString(), TownStorage.GSON.toJsonTree(town)));
+        JsonObject playerJson = new JsonObject();
+        players.forEach((id, data) -> playerJson.add(id.toString(), TownStorage.GSON.toJsonTree(data)));
+
+        return () -> {
+            Files.createDirectories(dir);
+            TownStorage.writeAtomically(dir.resolve("towns.json"), townJson);
+            TownStorage.writeAtomically(dir.resolve("players.json"), playerJson);
+        };
+    }
+
+    private static JsonObject toJson(Map<UUID, JsonElement> cache) {
+        JsonObject out = new JsonObject();
+        for (Map.Entry<UUID, JsonElement> entry : cache.entrySet()) {
+            out.add(entry.getKey().toString(), entry.getValue());
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // MIGRATION
+    // ========================================================================
+
+    @Override
+    public void retire() throws IOException {
+        for (Path file : new Path[]{townsFile, playersFile}) {
+            if (Files.exists(file)) {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".migrated"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.feudal.town;
+
+/**
+ * Global counter bumped whenever a player's town or rank changes: members joining or
+ * leaving, leaders and officers changing, towns being removed or reloaded.
+ *
+ * Unlike AccessEpoch it does not move on claim changes, so caches that only depend on
+ * who is in which town (see commands.OnlineRoster) survive bulk claiming and war captures.
+ * Server thread only.
+ */
+public final class MembershipEpoch {
+
+    private static int current = 0;
+
+    private MembershipEpoch() {
+    }
+
+    public static int current() {
+        return current;
+    }
+
+    static void bump() {
+        current++;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.feudal.town;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Sharded layout:
+ *  - towns/<town uuid>.json       one file per town
+ *  - players/players-NN.json      player records bucketed into PLAYER_SHARDS files by UUID hash
+ *
+ * A save only rewrites the towns and player shards that changed (and deletes files of
+ * disbanded towns). After invalidate() the next save rewrites every file and deletes
+ * any town file on disk without a live town. Loading parses all files in parallel.
+ */
+class ShardedJsonBackend implements TownStorageBackend {
+
+    static final int PLAYER_SHARDS = 64;
+
+    private final Path townDir;
+    private final Path playerDir;
+
+    // Towns that currently have a file on disk. Server thread only.
+    private final Set<UUID> writtenTowns = new HashSet<>();
+
+    // Serialized player records, one map per shard. Server thread only.
+    private final List<Map<UUID, JsonElement>> playerShards = new ArrayList<>(PLAYER_SHARDS);
+    private int cachedPlayers = 0;
+
+    // Set by invalidate(): rewrite every file and sweep stale town files from disk
+    private boolean rewriteAll = false;
+
+    ShardedJsonBackend(Path dir) {
+        this.townDir = dir.resolve("towns");
+        this.playerDir = dir.resolve("players");
+        for (int i = 0; i < PLAYER_SHARDS; i++) {
+            playerShards.add(new HashMap<>());
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "sharded JSON (" + townDir.getFileName() + "/, " + playerDir.getFileName() + "/)";
+    }
+
+    @Override
+    public boolean hasData() {
+        return Files.isDirectory(townDir) || Files.isDirectory(playerDir);
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        return TownStorage.sizeOf(townDir) + TownStorage.sizeOf(playerDir);
+    }
+
+    static int shardOf(UUID player) {
+        return Math.floorMod(player.hashCode(), PLAYER_SHARDS);
+    }
+
+    private Path townFile(UUID id) {
+        return townDir.resolve(id + ".json");
+    }
+
+    private Path shardFile(int shard) {
+        return playerDir.resolve(String.format("players-%02d.json", shard));
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    @Override
+    public void load(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) throws IOException {
+        writtenTowns.clear();
+        playerShards.forEach(Map::clear);
+        cachedPlayers = 0;
+
+        try {
+            for (Town town : readAll(townDir, this::readTown)) {
+                towns.put(town.getId(), town);
+                writtenTowns.add(town.getId());
+            }
+
+            for (Map<UUID, JsonElement> shard : readAll(playerDir, this::readShard)) {
+                for (Map.Entry<UUID, JsonElement> entry : shard.entrySet()) {
+                    UUID id = entry.getKey();
+                    players.put(id, TownStorage.GSON.fromJson(entry.getValue(), TownPlayerData.class));
+                    playerShards.get(shardOf(id)).put(id, entry.getValue());
+                    cachedPlayers++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface FileReader<T> {
+        T read(Path file) throws IOException;
+    }
+
+    private static <T> List<T> readAll(Path dir, FileReader<T> reader) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(".json")).toList();
+        }
+
+        return files.parallelStream()
+                .map(file -> {
+                    try {
+                        return reader.read(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Town readTown(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        UUID id;
+        try {
+            id = UUID.fromString(name.substring(0, name.length() - ".json".length()));
+        } catch (IllegalArgumentException ex) {
+            TownStorage.LOGGER.warn("Town file '{}' is not named after a UUID – skipping.", name);
+            return null;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Town town = TownStorage.GSON.fromJson(reader, Town.class);
+            if (town == null) return null;
+            if (!id.equals(town.getId())) town.setId(id);
+            town.clearDirty();
+            return town;
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed town file " + file, e);
+        }
+    }
+
+    private Map<UUID, JsonElement> readShard(Path file) throws IOException {
+        Map<UUID, JsonElement> out = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonElement root = JsonParser.parseReader(reader);
+            if (root == null || !root.isJsonObject()) return out;
+
+            for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject().entrySet()) {
+                try {
+                    out.put(UUID.fromString(entry.getKey()), entry.getValue());
+                } catch (IllegalArgumentException ex) {
+                    TownStorage.LOGGER.warn("Invalid player UUID key '{}' in {} – skipping.", entry.getKey(), file.getFileName());
+                }
+            }
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed player shard " + file, e);
+        }
+        return out;
+    }
+
+    // ========================================================================
+    // SAVING
+    // ========================================================================
+
+    @Override
+    public void invalidate() {
+        writtenTowns.clear();
+        rewriteAll = true;
+    }
+
+    @Override
+    public PendingWrite snapshot(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        Map<Path, JsonElement> writes = new HashMap<>();
+        List<Path> deletes = new ArrayList<>();
+        Set<Path> keep = rewriteAll ? new HashSet<>() : null; // town files the sweep must not delete
+
+        snapshotTowns(towns, writes, deletes);
+        snapshotPlayers(players, writes);
+        if (keep != null) {
+            for (UUID id : towns.keySet()) keep.add(townFile(id));
+        }
+        rewriteAll = false;
+
+        if (writes.isEmpty() && deletes.isEmpty() && keep == null) return null;
+
+        return () -> {
+            Files.createDirectories(townDir);
+            Files.createDirectories(playerDir);
+            // Deletes first, so a failing write never leaves a disbanded town to load again
+            for (Path file : deletes) {
+                Files.deleteIfExists(file);
+            }
+            if (keep != null) sweepTownFiles(keep);
+            for (Map.Entry<Path, JsonElement> write : writes.entrySet()) {
+                TownStorage.writeAtomically(write.getKey(), write.getValue());
+            }
+        };
+    }
+
+    /**
+     * Deletes every town file that is not in keep. Storage thread.
+     */
+    private void sweepTownFiles(Set<Path> keep) throws IOException {
+        List<Path> stale;
+        try (Stream<Path> listing = Files.list(townDir)) {
+            stale = listing.filter(p -> p.getFileName().toString().endsWith(".json") && !keep.contains(p)).toList();
+        }
+        for (Path file : stale) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void snapshotTowns(Map<UUID, Town> live, Map<Path, JsonElement> writes, List<Path> deletes) {
+        boolean added = false;
+        for (Map.Entry<UUID, Town> entry : live.entrySet()) {
+            Town town = entry.getValue();
+            if (town.isDirty() || !writtenTowns.contains(entry.getKey())) {
+                writes.put(townFile(entry.getKey()), TownStorage.GSON.toJsonTree(town));
+                town.clearDirty();
+                added |= writtenTowns.add(entry.getKey());
+            }
+        }
+
+        // Only look for disbanded towns when the counts say one may be gone
+        if (!added && writtenTowns.size() == live.size()) return;
+
+        for (Iterator<UUID> it = writtenTowns.iterator(); it.hasNext(); ) {
+            UUID id = it.next();
+            if (!live.containsKey(id)) {
+                deletes.add(townFile(id));
+                it.remove();
+            }
+        }
+    }
+
+    private void snapshotPlayers(Map<UUID, TownPlayerData> live, Map<Path, JsonElement> writes) {
+        long dirtyShards = 0L; // one bit per shard, PLAYER_SHARDS == 64
+
+        for (Map.Entry<UUID, TownPlayerData> entry : live.entrySet()) {
+            TownPlayerData data = entry.getValue();
+            int shard = shardOf(entry.getKey());
+            Map<UUID, JsonElement> cache = playerShards.get(shard);
+
+            if (data.isDirty() || !cache.containsKey(entry.getKey())) {
+                if (cache.put(entry.getKey(), TownStorage.GSON.toJsonTree(data)) == null) cachedPlayers++;
+                data.clearDirty();
+                dirtyShards |= 1L << shard;
+            }
+        }
+
+        if (rewriteAll) dirtyShards = -1L; // every shard
+
+        if (cachedPlayers != live.size()) {
+            for (int shard = 0; shard < PLAYER_SHARDS; shard++) {
+                Map<UUID, JsonElement> cache = playerShards.get(shard);
+                int before = cache.size();
+                cache.keySet().retainAll(live.keySet());
+                if (cache.size() != before) {
+                    cachedPlayers -= before - cache.size();
+                    dirtyShards |= 1L << shard;
+                }
+            }
+        }
+
+        for (int shard = 0; shard < PLAYER_SHARDS; shard++) {
+            if ((dirtyShards & (1L << shard)) == 0) continue;
+
+            JsonObject json = new JsonObject();
+            for (Map.Entry<UUID, JsonElement> entry : playerShards.get(shard).entrySet()) {
+                json.add(entry.getKey().toString(), entry.getValue());
+            }
+            writes.put(shardFile(shard), json);
+        }
+    }
+
+    // ========================================================================
+    // MIGRATION
+    // ========================================================================
+
+    @Override
+    public void retire() throws IOException {
+        for (Path dir : new Path[]{townDir, playerDir}) {
+            if (Files.isDirectory(dir)) {
+                Files.move(dir, dir.resolveSibling(dir.getFileName() + ".migrated"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.feudal.town;
+
+/**
+ * On-disk layout used by TownStorage. Selected with storage.STORAGE_MODE in the config.
+ */
+public enum StorageMode {
+    /** SavedData in the world's data/ folder, written by vanilla together with the world. */
+    WORLD,
+    /** towns.json + players.json, rewritten in full whenever anything changed. */
+    JSON,
+    /** towns/<uuid>.json per town + players/players-NN.json shards; only touched files are rewritten. */
+    SHARDED_JSON,
+    /** gzip-compressed towns.dat with delta-encoded claims; smallest and fastest to load. */
+    BINARY
+}
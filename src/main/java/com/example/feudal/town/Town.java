@@ -1,6 +1,14 @@
 package com.example.feudal.town;
 
+import com.google.gson.annotations.JsonAdapter;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArraySet;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -18,8 +26,10 @@ public class Town {
     private String name;
     private UUID leader;
 
-    private Set<UUID> citizens = new HashSet<>();
-    private Set<ClaimPos> claims = new HashSet<>();
+    private Set<UUID> citizens = new HashSet<>();   // every member, leader included
+    private Set<UUID> officers = new HashSet<>();   // subset of citizens, never the leader
+    @JsonAdapter(ClaimSet.GsonAdapter.class)
+    private ClaimSet claims = new ClaimSet();
 
     private long bankGold = 0L;
 
@@ -29,6 +39,38 @@ public class Town {
     private String motd = "";
     private boolean publicJoin = false;  // overwritten in TownManager after creation
 
+    private List<WarState> wars = new ArrayList<>(); // wars this town declared; see WarManager
+    private UUID liege;                              // town this one is a vassal of, or null; see VassalManager
+    private String faction;                          // faction name, or null; see FactionManager
+    private boolean factionLeader = false;
+
+    // Not persisted. Set by every mutator, cleared by TownStorage once the town is snapshotted.
+    private transient boolean dirty = false;
+
+    // Not persisted. Members that are neither leader nor officer; rebuilt lazily when null.
+    private transient Set<UUID> plainCitizens;
+
+    // Not persisted. Owned by TownManager: set while the town is in the registry, and while
+    // a change is waiting to be published as a TownSnapshot.
+    transient boolean registered = false;
+    transient boolean publishPending = false;
+
+    // Not persisted. Parts changed since the last TownSnapshot; the next one shares the rest.
+    transient boolean membersChanged = false;
+    transient boolean allClaimsChanged = false;
+    transient final IntArraySet changedClaimDimensions = new IntArraySet();
+
+    // Not persisted. Bumped by every change of the claims / of members and ranks; lets
+    // per-town caches (see commands.TownListings) tell whether THIS town changed.
+    private transient int claimsVersion = 0;
+    private transient int membersVersion = 0;
+
+    // Not persisted. Claim connectivity per dimension id, built on first use.
+    private transient Int2ObjectOpenHashMap<ClaimConnectivity> connectivity;
+
+    // Not persisted. The faction whose aggregates this town reports its changes to.
+    private transient Faction factionStats;
+
     // ========================================================================
     // CONSTRUCTORS
     // ========================================================================
@@ -64,20 +106,31 @@ public class Town {
         return id;
     }
 
-    public void setId(UUID id) { this.id = id; }
+    public void setId(UUID id) { this.id = id; markDirty(); }
 
     public String getName() {
         return name;
     }
 
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; markDirty(); }
 
     public UUID getLeader() {
         return leader;
     }
 
+    /**
+     * Moves leadership. The previous leader (if still a member) becomes a plain citizen,
+     * and the new leader stops being an officer.
+     */
     public void setLeader(UUID leader) {
         this.leader = leader;
+        if (leader != null) officers().remove(leader);
+        plainCitizens = null; // previous leader drops back into it on rebuild
+        membersChanged = true;
+        membersVersion++;
+        MembershipEpoch.bump();
+        markDirty();
+        AccessEpoch.bump();
     }
 
     public Set<UUID> getCitizens() {
@@ -85,23 +138,46 @@ public class Town {
     }
 
     public void setCitizens(Set<UUID> citizens) {
+        if (factionStats != null) factionStats.membersChanged(citizens.size() - this.citizens.size());
         this.citizens = citizens;
+        officers().retainAll(citizens);
+        plainCitizens = null;
+        membersChanged = true;
+        membersVersion++;
+        MembershipEpoch.bump();
+        markDirty();
+        AccessEpoch.bump();
     }
 
-    public Set<ClaimPos> getClaims() {
+    public ClaimSet getClaims() {
+        if (claims == null) claims = new ClaimSet(); // "claims": null in old JSON
         return claims;
     }
 
     public void setClaims(Set<ClaimPos> claims) {
-        this.claims = claims;
+        ClaimIndex.removeAll(this);
+        if (factionStats != null) factionStats.removeClaims(getClaims());
+        this.claims = claims instanceof ClaimSet set ? set : new ClaimSet(claims);
+        ClaimIndex.addAll(this);
+        if (factionStats != null) factionStats.addClaims(this.claims);
+        connectivity = null;
+        allClaimsChanged = true;
+        claimsVersion++;
+        markDirty();
     }
 
     public long getBankGold() {
         return bankGold;
     }
 
+    /**
+     * Stores the value only. Move gold through manager.BankManager, which records it in
+     * the ledger; a balance changed here is overwritten from the ledger on the next start.
+     */
     public void setBankGold(long bankGold) {
+        if (factionStats != null) factionStats.bankChanged(bankGold - this.bankGold);
         this.bankGold = bankGold;
+        markDirty();
     }
 
     // ========================================================================
@@ -109,27 +185,174 @@ public class Town {
     // ========================================================================
 
     public void addCitizen(UUID id) {
-        citizens.add(id);
+        if (citizens.add(id)) {
+            if (plainCitizens != null && !id.equals(leader)) plainCitizens.add(id);
+            if (factionStats != null) factionStats.membersChanged(1);
+            membersChanged = true;
+            membersVersion++;
+            MembershipEpoch.bump();
+            markDirty();
+            AccessEpoch.bump();
+        }
     }
 
     public void removeCitizen(UUID id) {
-        citizens.remove(id);
+        if (citizens.remove(id)) {
+            officers().remove(id);
+            if (plainCitizens != null) plainCitizens.remove(id);
+            if (factionStats != null) factionStats.membersChanged(-1);
+            membersChanged = true;
+            membersVersion++;
+            MembershipEpoch.bump();
+            markDirty();
+            AccessEpoch.bump();
+        }
     }
 
     public boolean isMember(UUID id) {
         return citizens.contains(id);
     }
 
+    // ========================================================================
+    // RANKS (authoritative; TownPlayerData.rank only mirrors this)
+    // ========================================================================
+
+    /**
+     * @return the member's rank, or null if they are not a member
+     */
+    public TownRank getRank(UUID id) {
+        if (id.equals(leader)) return TownRank.LEADER;
+        if (officers().contains(id)) return TownRank.OFFICER;
+        return citizens.contains(id) ? TownRank.CITIZEN : null;
+    }
+
+    public boolean canManageClaims(UUID id) {
+        TownRank rank = getRank(id);
+        return rank != null && rank.canManageClaims();
+    }
+
+    /**
+     * Makes a member an officer or a plain citizen. Ignored for non-members and the leader
+     * (use setLeader for that).
+     */
+    public void setOfficer(UUID id, boolean officer) {
+        if (!citizens.contains(id) || id.equals(leader)) return;
+
+        boolean changed = officer ? officers().add(id) : officers().remove(id);
+        if (!changed) return;
+
+        if (plainCitizens != null) {
+            if (officer) plainCitizens.remove(id);
+            else plainCitizens.add(id);
+        }
+        membersChanged = true;
+        membersVersion++;
+        MembershipEpoch.bump();
+        markDirty();
+        AccessEpoch.bump();
+    }
+
+    /**
+     * @return a counter that changes whenever this town's members, leader or officers change
+     */
+    public int getMembersVersion() {
+        return membersVersion;
+    }
+
+    public Set<UUID> getOfficers() {
+        return Collections.unmodifiableSet(officers());
+    }
+
+    /**
+     * Members that are neither leader nor officer.
+     */
+    public Set<UUID> getPlainCitizens() {
+        return Collections.unmodifiableSet(plainCitizens());
+    }
+
+    private Set<UUID> officers() {
+        if (officers == null) officers = new HashSet<>(); // "officers" missing in old JSON
+        return officers;
+    }
+
+    private Set<UUID> plainCitizens() {
+        if (plainCitizens == null) {
+            plainCitizens = new HashSet<>(citizens);
+            plainCitizens.removeAll(officers());
+            if (leader != null) plainCitizens.remove(leader);
+        }
+        return plainCitizens;
+    }
+
     // ========================================================================
     // CLAIMS
     // ========================================================================
 
     public void addClaim(ClaimPos pos) {
-        claims.add(pos);
+        addClaim(pos.getDimensionId(), pos.getChunkKey());
+    }
+
+    public void addClaim(int dimensionId, long chunkKey) {
+        if (getClaims().add(dimensionId, chunkKey)) {
+            ClaimIndex.put(dimensionId, chunkKey, this);
+            ClaimConnectivity areas = connectivity == null ? null : connectivity.get(dimensionId);
+            if (areas != null) areas.added(chunkKey);
+            if (factionStats != null) factionStats.claimAdded(dimensionId, chunkKey);
+            changedClaimDimensions.add(dimensionId);
+            claimsVersion++;
+            markDirty();
+        }
     }
 
     public void removeClaim(ClaimPos pos) {
-        claims.remove(pos);
+        removeClaim(pos.getDimensionId(), pos.getChunkKey());
+    }
+
+    public void removeClaim(int dimensionId, long chunkKey) {
+        if (getClaims().remove(dimensionId, chunkKey)) {
+            ClaimIndex.remove(dimensionId, chunkKey, this);
+            ClaimConnectivity areas = connectivity == null ? null : connectivity.get(dimensionId);
+            if (areas != null) areas.removed(chunkKey);
+            if (factionStats != null) factionStats.claimRemoved(dimensionId, chunkKey);
+            changedClaimDimensions.add(dimensionId);
+            claimsVersion++;
+            markDirty();
+        }
+    }
+
+    /**
+     * @return a counter that changes whenever this town's claims change
+     */
+    public int getClaimsVersion() {
+        return claimsVersion;
+    }
+
+    public boolean hasClaim(int dimensionId, long chunkKey) {
+        return getClaims().contains(dimensionId, chunkKey);
+    }
+
+    /**
+     * Connected areas of this town's claims in one dimension. Server thread only.
+     */
+    public ClaimConnectivity getConnectivity(int dimensionId) {
+        if (connectivity == null) connectivity = new Int2ObjectOpenHashMap<>(2);
+        ClaimConnectivity areas = connectivity.get(dimensionId);
+        if (areas == null) {
+            areas = new ClaimConnectivity(getClaims(), dimensionId);
+            connectivity.put(dimensionId, areas);
+        }
+        return areas;
+    }
+
+    /**
+     * @return number of separate claimed areas over all dimensions
+     */
+    public int getClaimAreaCount() {
+        int total = 0;
+        for (int dimensionId : getClaims().dimensionIds()) {
+            total += getConnectivity(dimensionId).componentCount();
+        }
+        return total;
     }
 
     // ========================================================================
@@ -141,11 +364,8 @@ public class Town {
     }
 
     public void setDescription(String description) {
-        if (description == null) {
-            this.description = "";
-            return;
-        }
-        this.description = description;
+        this.description = description == null ? "" : description;
+        markDirty();
     }
 
     public String getMotd() {
@@ -153,11 +373,8 @@ public class Town {
     }
 
     public void setMotd(String motd) {
-        if (motd == null) {
-            this.motd = "";
-            return;
-        }
-        this.motd = motd;
+        this.motd = motd == null ? "" : motd;
+        markDirty();
     }
 
     // ========================================================================
@@ -173,5 +390,100 @@ public class Town {
      */
     public void setPublicJoin(boolean publicJoin) {
         this.publicJoin = publicJoin;
+        markDirty();
+    }
+
+    // ========================================================================
+    // WARS (rules in manager.WarManager)
+    // ========================================================================
+
+    /**
+     * Wars this town is attacking in. The defending side is indexed by WarManager.
+     */
+    public List<WarState> getWars() {
+        if (wars == null) wars = new ArrayList<>(); // missing in old JSON
+        return wars;
+    }
+
+    // ========================================================================
+    // LIEGE (hierarchy rules and queries in manager.VassalManager)
+    // ========================================================================
+
+    public UUID getLiege() {
+        return liege;
+    }
+
+    /**
+     * Stores the link only. Use VassalManager to change it, which checks for cycles.
+     */
+    public void setLiege(UUID liege) {
+        this.liege = liege;
+        markDirty();
+    }
+
+    // ========================================================================
+    // FACTION (membership rules in manager.FactionManager)
+    // ========================================================================
+
+    /**
+     * @return name of the faction this town belongs to, or null
+     */
+    public String getFactionName() {
+        return faction;
+    }
+
+    public boolean isFactionLeader() {
+        return factionLeader;
+    }
+
+    /**
+     * @return the live faction (set by FactionManager after loading), or null
+     */
+    public Faction getFaction() {
+        return factionStats;
+    }
+
+    void attachFaction(Faction faction) {
+        this.factionStats = faction;
+        String name = faction == null ? null : faction.getName();
+        if (!Objects.equals(name, this.faction)) {
+            this.faction = name;
+            if (faction == null) this.factionLeader = false;
+            markDirty();
+        }
+    }
+
+    /**
+     * Restores the persisted faction fields; used by the storage backends only.
+     */
+    public void loadFaction(String faction, boolean leader) {
+        this.faction = faction;
+        this.factionLeader = leader;
+    }
+
+    void markFactionLeader(boolean leader) {
+        if (this.factionLeader == leader) return;
+        this.factionLeader = leader;
+        markDirty();
+    }
+
+    // ========================================================================
+    // DIRTY TRACKING (used by TownStorage autosave and TownManager snapshots)
+    // ========================================================================
+
+    public void markDirty() {
+        this.dirty = true;
+        if (registered && !publishPending) {
+            publishPending = true;
+            TownManager.queuePublish(this);
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clearDirty() {
+        this.dirty = false;
     }
 }
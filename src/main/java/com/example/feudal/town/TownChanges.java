@@ -0,0 +1,45 @@
+package com.example.feudal.town;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of TownManager.changesSince(version): every town published or removed after
+ * that version, up to and including getVersion(). Pass getVersion() to the next call.
+ *
+ * A town appears at most once, as its latest snapshot (in version order), or in
+ * getRemoved() if it was disbanded.
+ *
+ * A town the server publishes again while changesSince() is running may be left out:
+ * its old entry is dropped once the new version is visible, and the new one lies above
+ * getVersion(). It is in the result of the next call, so no change is lost, only late
+ * by one poll.
+ */
+public final class TownChanges {
+
+    private final long version;
+    private final List<TownSnapshot> updated;
+    private final List<UUID> removed;
+
+    TownChanges(long version, List<TownSnapshot> updated, List<UUID> removed) {
+        this.version = version;
+        this.updated = updated;
+        this.removed = removed;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<TownSnapshot> getUpdated() {
+        return updated;
+    }
+
+    public List<UUID> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return updated.isEmpty() && removed.isEmpty();
+    }
+}
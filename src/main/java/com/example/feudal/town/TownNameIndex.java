@@ -0,0 +1,176 @@
+package com.example.feudal.town;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Trie of town names, keyed by their case-folded form (see fold()).
+ *
+ * Exact lookups cost O(name length); prefix enumeration walks to the prefix node and
+ * then visits only as many names as requested, in alphabetical order, so tab completion
+ * stays fast however many towns exist. Every node counts the towns below it.
+ *
+ * Children are kept in sorted parallel arrays: most nodes have one or two children,
+ * which is far smaller than a map per node.
+ *
+ * IMPORTANT:
+ *  - Server thread only (TownManager also keeps a concurrent exact-match map)
+ *  - Names are displayed with their original case; only keys are folded
+ */
+final class TownNameIndex {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        char[] keys = NO_KEYS;      // sorted
+        Node[] children = NO_CHILDREN;
+        String name;                // original name of the town ending here, or null
+        UUID townId;
+        int size;                   // towns in this subtree
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            Node node = new Node();
+            newKeys[at] = c;
+            newChildren[at] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) return;
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+
+    private Node root = new Node();
+
+    /**
+     * Locale-independent case folding, so e.g. a Turkish server locale cannot make
+     * "TITAN" and "titan" different towns.
+     */
+    static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    UUID get(String name) {
+        Node node = find(fold(name));
+        return node == null ? null : node.townId;
+    }
+
+    /**
+     * @return false if another town already uses the (folded) name
+     */
+    boolean put(String name, UUID townId) {
+        String key = fold(name);
+        Node existing = find(key);
+        if (existing != null && existing.townId != null) {
+            if (!existing.townId.equals(townId)) return false;
+            existing.name = name; // same town, new spelling
+            return true;
+        }
+
+        Node node = root;
+        node.size++;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            node.size++;
+        }
+        node.name = name;
+        node.townId = townId;
+        return true;
+    }
+
+    /**
+     * Removes the name if it belongs to the given town; prunes emptied branches.
+     */
+    boolean remove(String name, UUID townId) {
+        String key = fold(name);
+        Node node = find(key);
+        if (node == null || node.townId == null || !node.townId.equals(townId)) return false;
+
+        node = root;
+        node.size--;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (--child.size == 0) {
+                node.removeChild(key.charAt(i)); // nothing left below
+                return true;
+            }
+            node = child;
+        }
+        node.name = null;
+        node.townId = null;
+        return true;
+    }
+
+    /**
+     * @return up to limit names starting with the prefix (case-insensitive), alphabetical
+     */
+    List<String> startingWith(String prefix, int limit) {
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        Node node = find(fold(prefix));
+        if (node != null && limit > 0) collect(node, out, limit);
+        return out;
+    }
+
+    int countStartingWith(String prefix) {
+        Node node = find(fold(prefix));
+        return node == null ? 0 : node.size;
+    }
+
+    int size() {
+        return root.size;
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static void collect(Node node, List<String> out, int limit) {
+        if (node.name != null) out.add(node.name);
+        for (Node child : node.children) {
+            if (out.size() >= limit) return;
+            collect(child, out, limit);
+        }
+    }
+}
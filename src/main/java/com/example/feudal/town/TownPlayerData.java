@@ -2,18 +2,32 @@ package com.example.feudal.town;
 
 import java.util.UUID;
 
+/**
+ * Per-player town link.
+ *
+ * IMPORTANT:
+ *  - rank mirrors Town.getRank and is kept for older save data and tools; the town's own
+ *    rank index is authoritative (TownManager keeps both in step)
+ */
 public class TownPlayerData {
 
     private UUID townId;
     private TownRank rank = TownRank.CITIZEN;
 
+    // Not persisted. Cleared by TownStorage once the record is snapshotted.
+    private transient boolean dirty = false;
+
     public TownPlayerData() {}
 
     public UUID getTownId() { return townId; }
-    public void setTownId(UUID id) { this.townId = id; }
+    public void setTownId(UUID id) { this.townId = id; this.dirty = true; AccessEpoch.bump(); }
 
     public TownRank getRank() { return rank; }
-    public void setRank(TownRank rank) { this.rank = rank; }
+    public void setRank(TownRank rank) { this.rank = rank; this.dirty = true; AccessEpoch.bump(); }
 
     public boolean hasTown() { return townId != null; }
+
+    public void markDirty() { this.dirty = true; }
+    public boolean isDirty() { return dirty; }
+    public void clearDirty() { this.dirty = false; }
 }
@@ -0,0 +1,27 @@
+package com.example.feudal.town;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Global player -> town membership records.
+ */
+public class TownPlayerManager {
+
+    private static final Map<UUID, TownPlayerData> PLAYERS = new HashMap<>();
+
+    /**
+     * Returns the record for a player, creating an empty (townless) one on first use.
+     */
+    public static TownPlayerData get(UUID uuid) {
+        return PLAYERS.computeIfAbsent(uuid, k -> new TownPlayerData());
+    }
+
+    public static Map<UUID, TownPlayerData> getPlayerMap() { return PLAYERS; }
+
+    public static void setPlayerMap(Map<UUID, TownPlayerData> players) {
+        PLAYERS.clear();
+        PLAYERS.putAll(players);
+    }
+}
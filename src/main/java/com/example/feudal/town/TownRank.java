@@ -1,5 +1,7 @@
 package com.example.feudal.town;
 
+import com.example.feudal.config.FeudalConfig;
+
 public enum TownRank {
     LEADER,
     OFFICER,
@@ -9,6 +11,20 @@ public enum TownRank {
         return this == LEADER || this == OFFICER;
     }
 
+    /**
+     * Break/place blocks inside the town's claims.
+     */
+    public boolean canBuild() {
+        return this != CITIZEN || FeudalConfig.CITIZENS_CAN_BUILD.get();
+    }
+
+    /**
+     * Right-click blocks (doors, containers, buttons...) inside the town's claims.
+     */
+    public boolean canInteract() {
+        return true;
+    }
+
     public boolean isLeader() {
         return this == LEADER;
     }
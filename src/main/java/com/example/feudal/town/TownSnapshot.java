@@ -0,0 +1,211 @@
+package com.example.feudal.town;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a town, safe to read from any thread.
+ *
+ * Built by TownManager on the server thread after a town changed and published
+ * as a whole, so readers always see a town as it was between two ticks, never
+ * half way through a command.
+ *
+ * Consecutive snapshots of a town share structure: the member sets and the claims of
+ * every dimension that did not change are taken over from the previous snapshot as-is,
+ * so a consumer can compare them by reference (==) to skip unchanged parts.
+ *
+ * IMPORTANT:
+ *  - Never hand out the arrays inside DimensionClaims; they are shared
+ *  - Dimension names are resolved when the snapshot is built, so no registry
+ *    has to be touched off-thread
+ *  - getVersion() grows with every snapshot published by TownManager (see changesSince)
+ */
+public final class TownSnapshot {
+
+    /**
+     * Claims of one town in one dimension, as sorted packed chunk keys.
+     */
+    public static final class DimensionClaims {
+        private final int dimensionId;
+        private final String dimension;
+        private final long[] chunkKeys; // sorted
+
+        DimensionClaims(int dimensionId, String dimension, long[] chunkKeys) {
+            Arrays.sort(chunkKeys);
+            this.dimensionId = dimensionId;
+            this.dimension = dimension;
+            this.chunkKeys = chunkKeys;
+        }
+
+        public int getDimensionId() {
+            return dimensionId;
+        }
+
+        public String getDimension() {
+            return dimension;
+        }
+
+        public int size() {
+            return chunkKeys.length;
+        }
+
+        public long chunkKey(int index) {
+            return chunkKeys[index];
+        }
+
+        public boolean contains(long chunkKey) {
+            return Arrays.binarySearch(chunkKeys, chunkKey) >= 0;
+        }
+
+        public long[] toArray() {
+            return chunkKeys.clone();
+        }
+    }
+
+    private final long version;
+    private final UUID id;
+    private final String name;
+    private final UUID leader;
+    private final Set<UUID> citizens;
+    private final Set<UUID> officers;
+    private final List<DimensionClaims> claims;
+    private final int claimCount;
+    private final String description;
+    private final String motd;
+    private final boolean publicJoin;
+    private final long bankGold;
+
+    private TownSnapshot(long version, Town town, Set<UUID> citizens, Set<UUID> officers,
+                         List<DimensionClaims> claims) {
+        this.version = version;
+        this.id = town.getId();
+        this.name = town.getName();
+        this.leader = town.getLeader();
+        this.citizens = citizens;
+        this.officers = officers;
+        this.claims = claims;
+        this.claimCount = town.getClaims().size();
+        this.description = town.getDescription();
+        this.motd = town.getMotd();
+        this.publicJoin = town.isPublicJoin();
+        this.bankGold = town.getBankGold();
+    }
+
+    /**
+     * Builds the next snapshot of a town, reusing whatever did not change since previous
+     * (null = build everything), and resets the town's change tracking. Server thread only.
+     */
+    static TownSnapshot of(Town town, TownSnapshot previous, long version) {
+        Set<UUID> citizens;
+        Set<UUID> officers;
+        if (previous != null && !town.membersChanged) {
+            citizens = previous.citizens;
+            officers = previous.officers;
+        } else {
+            citizens = Set.copyOf(town.getCitizens());
+            officers = Set.copyOf(town.getOfficers());
+        }
+
+        List<DimensionClaims> claims;
+        boolean claimsChanged = previous == null || town.allClaimsChanged || !town.changedClaimDimensions.isEmpty();
+        if (!claimsChanged) {
+            claims = previous.claims;
+        } else {
+            ClaimSet set = town.getClaims();
+            int[] dimensionIds = set.dimensionIds();
+            DimensionClaims[] built = new DimensionClaims[dimensionIds.length];
+            for (int i = 0; i < dimensionIds.length; i++) {
+                int dimensionId = dimensionIds[i];
+                DimensionClaims reused = previous == null || town.allClaimsChanged
+                        || town.changedClaimDimensions.contains(dimensionId) ? null : previous.dimension(dimensionId);
+                built[i] = reused != null ? reused
+                        : new DimensionClaims(dimensionId, ClaimDimensions.name(dimensionId), set.chunkKeys(dimensionId));
+            }
+            claims = List.of(built);
+        }
+
+        town.membersChanged = false;
+        town.allClaimsChanged = false;
+        town.changedClaimDimensions.clear();
+        return new TownSnapshot(version, town, citizens, officers, claims);
+    }
+
+    private DimensionClaims dimension(int dimensionId) {
+        for (DimensionClaims dimension : claims) {
+            if (dimension.dimensionId == dimensionId) return dimension;
+        }
+        return null;
+    }
+
+    // ========================================================================
+    // GETTERS
+    // ========================================================================
+
+    public long getVersion() {
+        return version;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UUID getLeader() {
+        return leader;
+    }
+
+    public Set<UUID> getCitizens() {
+        return citizens;
+    }
+
+    public Set<UUID> getOfficers() {
+        return officers;
+    }
+
+    public boolean isMember(UUID player) {
+        return citizens.contains(player);
+    }
+
+    /**
+     * @return the member's rank, or null if they are not a member
+     */
+    public TownRank getRank(UUID player) {
+        if (player.equals(leader)) return TownRank.LEADER;
+        if (officers.contains(player)) return TownRank.OFFICER;
+        return citizens.contains(player) ? TownRank.CITIZEN : null;
+    }
+
+    public List<DimensionClaims> getClaims() {
+        return claims;
+    }
+
+    public int getClaimCount() {
+        return claimCount;
+    }
+
+    public boolean hasClaim(int dimensionId, long chunkKey) {
+        DimensionClaims dimension = dimension(dimensionId);
+        return dimension != null && dimension.contains(chunkKey);
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getMotd() {
+        return motd;
+    }
+
+    public boolean isPublicJoin() {
+        return publicJoin;
+    }
+
+    public long getBankGold() {
+        return bankGold;
+    }
+}
@@ -1,152 +1,375 @@
 package com.example.feudal.town;
 
+import com.example.feudal.config.FeudalConfig;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
 import net.neoforged.fml.loading.FMLPaths;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 /**
- * Handles saving/loading town + player data as JSON.
+ * Handles saving/loading town + player data.
+ *
+ * The on-disk layout is a TownStorageBackend picked by storage.STORAGE_MODE
+ * (WORLD, JSON, SHARDED_JSON or BINARY). JSON can always be exported for debugging.
+ * Saving is split in two halves:
+ *  - snapshot (server thread): the backend serializes only records flagged dirty
+ *  - write (background "Feudalism-Storage" thread): files are written to a temp file
+ *    and atomically renamed over the real one, so a crash mid-write never corrupts them
+ *
+ * WORLD skips the second half: the snapshot marks the world's SavedData dirty and
+ * vanilla writes it with the next world save.
+ *
+ * If the configured layout has no data yet but another one does (e.g. towns.json from
+ * before switching to SHARDED_JSON), that data is loaded, written in the new layout
+ * and the old files are renamed to *.migrated. The bank files (ledger and upkeep state)
+ * move along when the bank directory changes (WORLD <-> the config-folder layouts).
  */
 public class TownStorage {
 
-    private static final Logger LOGGER = LogManager.getLogger("Feudalism-TownStorage");
+    static final Logger LOGGER = LogManager.getLogger("Feudalism-TownStorage");
 
-    private static final Gson GSON = new GsonBuilder()
+    static final Gson GSON = new GsonBuilder()
             .setPrettyPrinting()
             .create();
 
-    private static final Path CONFIG_DIR = FMLPaths.CONFIGDIR.get().resolve("feudalism");
-    private static final Path TOWNS_FILE = CONFIG_DIR.resolve("towns.json");
-    private static final Path PLAYERS_FILE = CONFIG_DIR.resolve("players.json");
 
-    private static final Type TOWN_MAP_TYPE = new TypeToken<Map<String, Town>>() {}.getType();
-    private static final Type PLAYER_MAP_TYPE = new TypeToken<Map<String, TownPlayerData>>() {}.getType();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Feudalism-Storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Files kept in the bank directory, moved with the town data on migration
+    private static final String[] BANK_FILES = {
+            BankLedger.LOG_FILE,
+            BankLedger.SNAPSHOT_FILE,
+            "upkeep.dat" // manager.UpkeepScheduler's cycle state, checked against the ledger
+    };
+
+    private static TownStorageBackend backend;
+    private static MinecraftServer server;
+
+    // Set when loading failed, so we never overwrite data we could not read
+    private static boolean loadFailed = false;
+
+    // Set by the storage thread when a write failed. Records were marked clean when they
+    // were snapshotted, so the next snapshot has to write everything again.
+    private static volatile boolean writeFailed = false;
 
     private TownStorage() {
     }
 
-    public static void loadAll() {
-        createConfigDir();
-        loadTowns();
-        loadPlayers();
+    // Resolved lazily so the backends can be used without FML (e.g. from the JMH benchmarks)
+    private static Path configDir() {
+        return FMLPaths.CONFIGDIR.get().resolve("feudalism");
     }
 
-    public static void saveAll() {
+    /**
+     * File-based backends only; WORLD needs a running server and is created by loadAll.
+     */
+    public static TownStorageBackend createBackend(StorageMode mode, Path dir) {
+        return switch (mode) {
+            case WORLD -> throw new IllegalArgumentException("WORLD storage needs a running server");
+            case JSON -> new JsonFileBackend(dir);
+            case SHARDED_JSON -> new ShardedJsonBackend(dir);
+            case BINARY -> new BinaryBackend(dir);
+        };
+    }
+
+    private static TownStorageBackend backendFor(StorageMode mode) {
+        return mode == StorageMode.WORLD ? new WorldSavedDataBackend(server) : createBackend(mode, configDir());
+    }
+
+    public static TownStorageBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Directory of the bank ledger (see BankLedger), next to the town data it belongs to:
+     * <world>/data/feudalism/bank for WORLD, config/feudalism/bank otherwise. So a world
+     * backup restores its ledger with it, and singleplayer worlds never share one.
+     * Only valid after loadAll().
+     */
+    public static Path getBankDir() {
+        return bankDirFor(backend);
+    }
+
+    private static Path bankDirFor(TownStorageBackend layout) {
+        Path base = layout instanceof WorldSavedDataBackend
+                ? server.getWorldPath(LevelResource.ROOT).resolve("data").resolve("feudalism")
+                : configDir();
+        return base.resolve("bank");
+    }
+
+    /**
+     * Must run once the levels exist (ServerStartingEvent) so WORLD can reach the overworld.
+     */
+    public static void loadAll(MinecraftServer currentServer) {
+        server = currentServer;
         createConfigDir();
-        saveTowns();
-        savePlayers();
+        backend = backendFor(FeudalConfig.STORAGE_MODE.get());
+        loadFailed = false;
+        writeFailed = false;
+
+        TownStorageBackend source = backend.hasData() ? backend : findMigrationSource();
+        Map<UUID, Town> towns = new HashMap<>();
+        Map<UUID, TownPlayerData> players = new HashMap<>();
+        long started = System.nanoTime();
+
+        if (source != null) {
+            try {
+                source.load(towns, players);
+            } catch (IOException e) {
+                loadFailed = true;
+                TownManager.setTownMap(new HashMap<>());
+                TownPlayerManager.setPlayerMap(new HashMap<>());
+                LOGGER.error("Failed to load Feudalism data from {} – saving is disabled until restart.",
+                        source.describe(), e);
+                return;
+            }
+        } else {
+            LOGGER.info("No Feudalism data found, starting with empty town data.");
+        }
+
+        TownManager.setTownMap(towns);
+        TownPlayerManager.setPlayerMap(players);
+        TownManager.syncRanks(players);
+        if (source != null) {
+            LOGGER.info("Loaded {} towns and {} player town records from {} in {} ms ({} KiB on disk).",
+                    towns.size(), players.size(), source.describe(),
+                    (System.nanoTime() - started) / 1_000_000, source.sizeOnDisk() / 1024);
+        }
+
+        if (source != null && source != backend) {
+            migrate(source);
+        }
     }
 
-    private static void createConfigDir() {
+    private static TownStorageBackend findMigrationSource() {
+        for (StorageMode mode : StorageMode.values()) {
+            TownStorageBackend candidate = backendFor(mode);
+            if (candidate.getClass() != backend.getClass() && candidate.hasData()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void migrate(TownStorageBackend source) {
+        LOGGER.info("Migrating Feudalism data from {} to {}.", source.describe(), backend.describe());
+
+        TownManager.getTownMap().values().forEach(Town::markDirty);
+        TownPlayerManager.getPlayerMap().values().forEach(TownPlayerData::markDirty);
+
         try {
-            Files.createDirectories(CONFIG_DIR);
+            TownStorageBackend.PendingWrite write = backend.snapshot(
+                    TownManager.getTownMap(), TownPlayerManager.getPlayerMap());
+            if (write != null) write.write();
+            if (backend instanceof WorldSavedDataBackend world) world.saveNow();
+            source.retire();
         } catch (IOException e) {
-            LOGGER.error("Failed to create Feudalism config directory: {}", CONFIG_DIR, e);
+            LOGGER.error("Failed to migrate Feudalism data; the old files were left in place.", e);
+            return;
+        }
+
+        Path from = bankDirFor(source);
+        Path to = bankDirFor(backend);
+        if (from.equals(to)) return;
+        try {
+            migrateBankFiles(from, to);
+        } catch (IOException e) {
+            LOGGER.error("Failed to move the bank files from {} to {}.", from, to, e);
         }
     }
 
-    private static void saveTowns() {
-        Map<String, Town> data = new HashMap<>();
-        for (Map.Entry<UUID, Town> entry : TownManager.getTownMap().entrySet()) {
-            data.put(entry.getKey().toString(), entry.getValue());
+    /**
+     * Copies the bank files next to the migrated data, then renames the old ones to
+     * *.migrated. Bank files already at the target did not come with the loaded data,
+     * so they are renamed to *.replaced and never opened.
+     */
+    private static void migrateBankFiles(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        for (String name : BANK_FILES) {
+            Path target = to.resolve(name);
+            if (Files.exists(target)) {
+                moveAtomically(target, to.resolve(name + ".replaced"));
+            }
+
+            Path file = from.resolve(name);
+            if (!Files.exists(file)) continue;
+            Path temp = to.resolve(name + ".tmp");
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING); // may cross file systems
+            moveAtomically(temp, target);
+        }
+        for (String name : BANK_FILES) {
+            Path file = from.resolve(name);
+            if (Files.exists(file)) moveAtomically(file, from.resolve(name + ".migrated"));
         }
+        LOGGER.info("Moved the bank files from {} to {}.", from, to);
+    }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(
-                TOWNS_FILE,
-                StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING
-        )) {
-            GSON.toJson(data, writer);
-        } catch (IOException e) {
-            LOGGER.error("Failed to save towns to {}", TOWNS_FILE, e);
+    /**
+     * Synchronous save, used on shutdown. Waits for any queued background write first.
+     * Writes every record, so nothing lost to an earlier failed write stays unsaved.
+     */
+    public static void saveAll() {
+        try {
+            submitSnapshot(true).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while waiting for Feudalism data to save", e);
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to save Feudalism data", e.getCause());
         }
     }
 
-    private static void loadTowns() {
-        if (!Files.exists(TOWNS_FILE)) {
-            LOGGER.info("No towns.json found, starting with empty town data.");
-            return;
+    /**
+     * Periodic save. Snapshots changed records on the calling (server) thread and
+     * writes them on the background thread. Does nothing if nothing changed.
+     */
+    public static void autosave() {
+        submitSnapshot(false);
+    }
+
+    private static Future<?> submitSnapshot(boolean force) {
+        if (backend == null || loadFailed) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (force || writeFailed) {
+            writeFailed = false; // a write failing after this point sets it again
+            backend.invalidate();
         }
 
-        try (BufferedReader reader = Files.newBufferedReader(TOWNS_FILE, StandardCharsets.UTF_8)) {
-            Map<String, Town> data = GSON.fromJson(reader, TOWN_MAP_TYPE);
-            if (data == null) data = new HashMap<>();
-
-            Map<UUID, Town> towns = new HashMap<>();
-            for (Map.Entry<String, Town> entry : data.entrySet()) {
-                try {
-                    UUID id = UUID.fromString(entry.getKey());
-                    towns.put(id, entry.getValue());
-                } catch (IllegalArgumentException ex) {
-                    LOGGER.warn("Invalid town UUID key '{}' in towns.json – skipping.", entry.getKey());
-                }
+        TownStorageBackend.PendingWrite write = backend.snapshot(
+                TownManager.getTownMap(), TownPlayerManager.getPlayerMap());
+
+        TownStorageBackend target = backend;
+
+        // An empty task still waits for earlier queued writes, which saveAll relies on
+        return WRITER.submit(() -> {
+            if (write == null) return;
+            createConfigDir();
+            try {
+                write.write();
+            } catch (IOException e) {
+                writeFailed = true;
+                LOGGER.error("Failed to save Feudalism data to {}; everything is written again on the next save.",
+                        target.describe(), e);
             }
+        });
+    }
 
-            TownManager.setTownMap(towns);
-            LOGGER.info("Loaded {} towns.", towns.size());
-        } catch (IOException e) {
-            LOGGER.error("Failed to load towns from {}", TOWNS_FILE, e);
-        }
+    /**
+     * Queues a write on the storage thread, behind any earlier ones.
+     */
+    public static Future<?> submitWrite(TownStorageBackend.PendingWrite write) {
+        return WRITER.submit(() -> {
+            try {
+                write.write();
+            } catch (IOException e) {
+                LOGGER.error("Failed to write Feudalism data", e);
+            }
+        });
+    }
+
+    /**
+     * Writes a full pretty-printed JSON copy of all data to config/feudalism/export/,
+     * whatever the active layout is. Does not affect autosave bookkeeping.
+     *
+     * @return the export directory, completed once the files are written
+     */
+    public static CompletableFuture<Path> exportJson() {
+        Path dir = configDir().resolve("export");
+        TownStorageBackend.PendingWrite write = JsonFileBackend.export(
+                dir, TownManager.getTownMap(), TownPlayerManager.getPlayerMap());
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write.write();
+                return dir;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
     }
 
-    private static void savePlayers() {
-        Map<String, TownPlayerData> data = new HashMap<>();
-        for (Map.Entry<UUID, TownPlayerData> entry : TownPlayerManager.getPlayerMap().entrySet()) {
-            data.put(entry.getKey().toString(), entry.getValue());
+    private static void createConfigDir() {
+        try {
+            Files.createDirectories(configDir());
+        } catch (IOException e) {
+            LOGGER.error("Failed to create Feudalism config directory: {}", configDir(), e);
         }
+    }
 
+    /**
+     * Writes JSON to a temp sibling, then renames it over the target.
+     */
+    static void writeAtomically(Path target, JsonElement data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
         try (BufferedWriter writer = Files.newBufferedWriter(
-                PLAYERS_FILE,
+                temp,
                 StandardCharsets.UTF_8,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.TRUNCATE_EXISTING
         )) {
             GSON.toJson(data, writer);
-        } catch (IOException e) {
-            LOGGER.error("Failed to save player town data to {}", PLAYERS_FILE, e);
         }
+        moveAtomically(temp, target);
     }
 
-    private static void loadPlayers() {
-        if (!Files.exists(PLAYERS_FILE)) {
-            LOGGER.info("No players.json found, starting with empty player town data.");
-            return;
-        }
-
-        try (BufferedReader reader = Files.newBufferedReader(PLAYERS_FILE, StandardCharsets.UTF_8)) {
-            Map<String, TownPlayerData> data = GSON.fromJson(reader, PLAYER_MAP_TYPE);
-            if (data == null) data = new HashMap<>();
-
-            Map<UUID, TownPlayerData> players = new HashMap<>();
-            for (Map.Entry<String, TownPlayerData> entry : data.entrySet()) {
-                try {
-                    UUID id = UUID.fromString(entry.getKey());
-                    players.put(id, entry.getValue());
-                } catch (IllegalArgumentException ex) {
-                    LOGGER.warn("Invalid player UUID key '{}' in players.json – skipping.", entry.getKey());
-                }
+    /**
+     * @return size of a file, or the total size of the files directly inside a directory
+     */
+    static long sizeOf(Path path) {
+        try {
+            if (Files.isRegularFile(path)) return Files.size(path);
+            if (!Files.isDirectory(path)) return 0L;
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).mapToLong(file -> {
+                    try {
+                        return Files.size(file);
+                    } catch (IOException e) {
+                        return 0L;
+                    }
+                }).sum();
             }
-
-            TownPlayerManager.setPlayerMap(players);
-            LOGGER.info("Loaded {} player town records.", players.size());
         } catch (IOException e) {
-            LOGGER.error("Failed to load player town data from {}", PLAYERS_FILE, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * Renames temp over target, atomically where the file system allows it.
+     */
+    public static void moveAtomically(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 }
@@ -0,0 +1,61 @@
+package com.example.feudal.town;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One on-disk layout for town + player data. TownStorage owns the active backend,
+ * the background writer thread and migration between layouts.
+ *
+ * Backends keep whatever per-record cache they need and clear the dirty flags of
+ * the records they snapshot. That happens before the write runs, so after a failed
+ * write TownStorage calls invalidate() and the next snapshot writes everything again. They only depend on the directory they are given,
+ * so they can also be driven outside a running server (tools, benchmarks).
+ */
+public interface TownStorageBackend {
+
+    /**
+     * Work captured on the server thread and run on the storage thread.
+     */
+    @FunctionalInterface
+    interface PendingWrite {
+        void write() throws IOException;
+    }
+
+    String describe();
+
+    /**
+     * @return true if this layout has data on disk to load
+     */
+    boolean hasData();
+
+    /**
+     * @return bytes currently used on disk by this layout (for load/save statistics)
+     */
+    long sizeOnDisk();
+
+    /**
+     * Reads everything into the given maps and primes the backend's caches.
+     */
+    void load(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) throws IOException;
+
+    /**
+     * Server thread only. Captures changed records into an immutable write.
+     *
+     * @return the write to run off-thread, or null if nothing changed since the last snapshot
+     */
+    PendingWrite snapshot(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players);
+
+    /**
+     * Server thread only. Forgets what is on disk: the next snapshot writes every record,
+     * changed or not, and removes anything left over from records that no longer exist.
+     */
+    void invalidate();
+
+    /**
+     * Moves this layout's files aside after its data was migrated to another backend,
+     * so the migration only ever runs once.
+     */
+    void retire() throws IOException;
+}
@@ -0,0 +1,120 @@
+package com.example.feudal.town;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persisted state of one war, stored on the attacking Town (Town.getWars()).
+ *
+ * Timers count remaining server ticks rather than wall-clock time, so a war is paused
+ * while the server is down and resumes where it stopped.
+ *
+ * IMPORTANT:
+ *  - Plain data only; the rules live in manager.WarManager, which also marks the
+ *    attacker dirty after changing anything here
+ *  - No-args constructors are required for Gson
+ */
+public class WarState {
+
+    public enum Phase {
+        WARMUP,
+        ACTIVE
+    }
+
+    private UUID defender;
+    private Phase phase = Phase.WARMUP;
+    private int ticksLeft;             // of the current phase
+    private int attackerScore;
+    private int defenderScore;
+    private List<Contest> contested = new ArrayList<>();
+
+    /**
+     * A defender chunk attackers are trying to take. Progress counts ticks of attacker
+     * control; the chunk is captured at WAR_CAPTURE_SECONDS.
+     */
+    public static class Contest {
+        private String dimension;
+        private int chunkX;
+        private int chunkZ;
+        private int progress;
+
+        public Contest() {
+        }
+
+        public Contest(String dimension, int chunkX, int chunkZ) {
+            this.dimension = dimension;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        public String getDimension() {
+            return dimension;
+        }
+
+        public int getChunkX() {
+            return chunkX;
+        }
+
+        public int getChunkZ() {
+            return chunkZ;
+        }
+
+        public int getProgress() {
+            return progress;
+        }
+
+        public void setProgress(int progress) {
+            this.progress = progress;
+        }
+    }
+
+    public WarState() {
+    }
+
+    public WarState(UUID defender, int warmupTicks) {
+        this.defender = defender;
+        this.ticksLeft = warmupTicks;
+    }
+
+    public UUID getDefender() {
+        return defender;
+    }
+
+    public Phase getPhase() {
+        return phase == null ? Phase.WARMUP : phase;
+    }
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    public int getTicksLeft() {
+        return ticksLeft;
+    }
+
+    public void setTicksLeft(int ticksLeft) {
+        this.ticksLeft = ticksLeft;
+    }
+
+    public int getAttackerScore() {
+        return attackerScore;
+    }
+
+    public void setAttackerScore(int attackerScore) {
+        this.attackerScore = attackerScore;
+    }
+
+    public int getDefenderScore() {
+        return defenderScore;
+    }
+
+    public void setDefenderScore(int defenderScore) {
+        this.defenderScore = defenderScore;
+    }
+
+    public List<Contest> getContested() {
+        if (contested == null) contested = new ArrayList<>(); // missing in old JSON
+        return contested;
+    }
+}
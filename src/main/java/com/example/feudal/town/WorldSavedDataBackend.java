@@ -0,0 +1,382 @@
+package com.example.feudal.town;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-world layout: a SavedData ("feudalism") on the overworld's DimensionDataStorage,
+ * stored as <world>/data/feudalism.dat.
+ *
+ * Nothing is written by us. A snapshot re-encodes dirty towns into cached tags and marks
+ * the SavedData dirty; vanilla writes it together with the rest of the world, so world
+ * saves and backups always contain matching town data.
+ *
+ * NBT layout:
+ *  - Version: int
+ *  - Towns: list of town compounds (citizens/officers as LongArrays of UUID halves,
+ *    claims as one LongArray of packed chunk keys per dimension, optional Wars list,
+ *    Liege and Faction)
+ *  - Players: Ids / Towns as LongArrays of UUID halves, Ranks as a ByteArray
+ */
+class WorldSavedDataBackend implements TownStorageBackend {
+
+    private static final String DATA_NAME = "feudalism";
+    private static final int FORMAT_VERSION = 1;
+
+    private final MinecraftServer server;
+    private final Path file;
+
+    // Encoded town compounds. Server thread only.
+    private final Map<UUID, CompoundTag> townCache = new HashMap<>();
+    private CompoundTag playerTag = new CompoundTag();
+    private int lastPlayerCount = -1;
+
+    private Data data;
+    private boolean retired = false;
+
+    WorldSavedDataBackend(MinecraftServer server) {
+        this.server = server;
+        this.file = server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(DATA_NAME + ".dat");
+    }
+
+    @Override
+    public String describe() {
+        return "world saved data (data/" + DATA_NAME + ".dat)";
+    }
+
+    @Override
+    public boolean hasData() {
+        return Files.exists(file);
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        return TownStorage.sizeOf(file);
+    }
+
+    private Data data() {
+        if (data == null) {
+            data = server.overworld().getDataStorage().computeIfAbsent(
+                    new SavedData.Factory<>(Data::new, Data::load, null), DATA_NAME);
+            data.backend = this;
+        }
+        return data;
+    }
+
+    // ========================================================================
+    // LOADING
+    // ========================================================================
+
+    @Override
+    public void load(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) throws IOException {
+        townCache.clear();
+        lastPlayerCount = -1;
+
+        CompoundTag root = data().loaded;
+        data.loaded = null;
+        if (root == null) return;
+
+        int version = root.getInt("Version");
+        if (version > FORMAT_VERSION) {
+            throw new IOException(file + " was written by a newer version (format " + version + ")");
+        }
+
+        ListTag townList = root.getList("Towns", Tag.TAG_COMPOUND);
+        for (int i = 0; i < townList.size(); i++) {
+            CompoundTag tag = townList.getCompound(i);
+            Town town = readTown(tag);
+            towns.put(town.getId(), town);
+            townCache.put(town.getId(), tag);
+        }
+
+        CompoundTag playerData = root.getCompound("Players");
+        long[] ids = playerData.getLongArray("Ids");
+        long[] townIds = playerData.getLongArray("Towns");
+        byte[] ranks = playerData.getByteArray("Ranks");
+        TownRank[] rankValues = TownRank.values();
+        for (int i = 0; i < ranks.length; i++) {
+            TownPlayerData record = new TownPlayerData();
+            long msb = townIds[i * 2];
+            long lsb = townIds[i * 2 + 1];
+            if (msb != 0L || lsb != 0L) record.setTownId(new UUID(msb, lsb));
+            record.setRank(rankValues[ranks[i]]);
+            record.clearDirty();
+            players.put(new UUID(ids[i * 2], ids[i * 2 + 1]), record);
+        }
+        playerTag = playerData;
+        lastPlayerCount = ranks.length;
+    }
+
+    private static Town readTown(CompoundTag tag) {
+        Town town = new Town();
+        town.setId(tag.getUUID("Id"));
+        town.setName(tag.getString("Name"));
+        if (tag.hasUUID("Leader")) town.setLeader(tag.getUUID("Leader"));
+        town.setDescription(tag.getString("Description"));
+        town.setMotd(tag.getString("Motd"));
+        town.setPublicJoin(tag.getBoolean("PublicJoin"));
+        town.setBankGold(tag.getLong("BankGold"));
+        if (tag.hasUUID("Liege")) town.setLiege(tag.getUUID("Liege"));
+        if (tag.contains("Faction", Tag.TAG_STRING)) town.loadFaction(tag.getString("Faction"), tag.getBoolean("FactionLeader"));
+
+        long[] citizens = tag.getLongArray("Citizens");
+        for (int i = 0; i + 1 < citizens.length; i += 2) {
+            town.getCitizens().add(new UUID(citizens[i], citizens[i + 1]));
+        }
+        long[] officers = tag.getLongArray("Officers");
+        for (int i = 0; i + 1 < officers.length; i += 2) {
+            town.setOfficer(new UUID(officers[i], officers[i + 1]), true);
+        }
+
+        // Not registered with TownManager yet, so fill the set directly (no claim index updates)
+        CompoundTag claims = tag.getCompound("Claims");
+        for (String dimension : claims.getAllKeys()) {
+            int dimensionId = ClaimDimensions.intern(dimension);
+            for (long key : claims.getLongArray(dimension)) {
+                town.getClaims().add(dimensionId, key);
+            }
+        }
+
+        ListTag wars = tag.getList("Wars", Tag.TAG_COMPOUND); // empty in data from before wars
+        WarState.Phase[] phases = WarState.Phase.values();
+        for (int i = 0; i < wars.size(); i++) {
+            CompoundTag warTag = wars.getCompound(i);
+            WarState war = new WarState(warTag.getUUID("Defender"), 0);
+            war.setPhase(phases[warTag.getByte("Phase")]);
+            war.setTicksLeft(warTag.getInt("TicksLeft"));
+            war.setAttackerScore(warTag.getInt("AttackerScore"));
+            war.setDefenderScore(warTag.getInt("DefenderScore"));
+            ListTag contests = warTag.getList("Contested", Tag.TAG_COMPOUND);
+            for (int c = 0; c < contests.size(); c++) {
+                CompoundTag contestTag = contests.getCompound(c);
+                WarState.Contest contest = new WarState.Contest(contestTag.getString("Dimension"),
+                        contestTag.getInt("X"), contestTag.getInt("Z"));
+                contest.setProgress(contestTag.getInt("Progress"));
+                war.getContested().add(contest);
+            }
+            town.getWars().add(war);
+        }
+
+        town.clearDirty();
+        return town;
+    }
+
+    // ========================================================================
+    // SAVING
+    // ========================================================================
+
+    @Override
+    public PendingWrite snapshot(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        if (encodeChanges(towns, players)) {
+            data().setDirty();
+        }
+        return null; // written by vanilla with the next world save
+    }
+
+    @Override
+    public void invalidate() {
+        if (data != null) data.setDirty(); // vanilla writes the whole SavedData anyway
+    }
+
+    /**
+     * Writes the SavedData right away instead of waiting for the next world save.
+     * Used after a migration, before the old files are retired. Server thread only.
+     */
+    void saveNow() {
+        data().setDirty();
+        data.save(file.toFile(), server.registryAccess());
+    }
+
+    /**
+     * Re-encodes dirty records into the cached tags.
+     *
+     * @return true if anything changed since the last call
+     */
+    private boolean encodeChanges(Map<UUID, Town> towns, Map<UUID, TownPlayerData> players) {
+        boolean changed = townCache.size() != towns.size();
+
+        for (Map.Entry<UUID, Town> entry : towns.entrySet()) {
+            Town town = entry.getValue();
+            if (town.isDirty() || !townCache.containsKey(entry.getKey())) {
+                townCache.put(entry.getKey(), encodeTown(town));
+                town.clearDirty();
+                changed = true;
+            }
+        }
+        if (changed) townCache.keySet().retainAll(towns.keySet()); // disbanded towns
+
+        boolean playersChanged = lastPlayerCount != players.size();
+        for (TownPlayerData record : players.values()) {
+            if (record.isDirty()) {
+                playersChanged = true;
+                break;
+            }
+        }
+        if (playersChanged) {
+            playerTag = encodePlayers(players);
+            lastPlayerCount = players.size();
+        }
+
+        return changed || playersChanged;
+    }
+
+    private static CompoundTag encodeTown(Town town) {
+        CompoundTag tag = new CompoundTag();
+        tag.putUUID("Id", town.getId());
+        tag.putString("Name", town.getName() == null ? "" : town.getName());
+        if (town.getLeader() != null) tag.putUUID("Leader", town.getLeader());
+        tag.putString("Description", town.getDescription());
+        tag.putString("Motd", town.getMotd());
+        tag.putBoolean("PublicJoin", town.isPublicJoin());
+        tag.putLong("BankGold", town.getBankGold());
+        if (town.getLiege() != null) tag.putUUID("Liege", town.getLiege());
+        if (town.getFactionName() != null) {
+            tag.putString("Faction", town.getFactionName());
+            tag.putBoolean("FactionLeader", town.isFactionLeader());
+        }
+
+        tag.putLongArray("Citizens", uuidArray(town.getCitizens()));
+        tag.putLongArray("Officers", uuidArray(town.getOfficers()));
+
+        CompoundTag claims = new CompoundTag();
+        ClaimSet set = town.getClaims();
+        for (int dimensionId : set.dimensionIds()) {
+            claims.putLongArray(ClaimDimensions.name(dimensionId), set.chunkKeys(dimensionId));
+        }
+        tag.put("Claims", claims);
+
+        if (!town.getWars().isEmpty()) {
+            ListTag wars = new ListTag();
+            for (WarState war : town.getWars()) {
+                CompoundTag warTag = new CompoundTag();
+                warTag.putUUID("Defender", war.getDefender());
+                warTag.putByte("Phase", (byte) war.getPhase().ordinal());
+                warTag.putInt("TicksLeft", war.getTicksLeft());
+                warTag.putInt("AttackerScore", war.getAttackerScore());
+                warTag.putInt("DefenderScore", war.getDefenderScore());
+                ListTag contests = new ListTag();
+                for (WarState.Contest contest : war.getContested()) {
+                    CompoundTag contestTag = new CompoundTag();
+                    contestTag.putString("Dimension", contest.getDimension());
+                    contestTag.putInt("X", contest.getChunkX());
+                    contestTag.putInt("Z", contest.getChunkZ());
+                    contestTag.putInt("Progress", contest.getProgress());
+                    contests.add(contestTag);
+                }
+                warTag.put("Contested", contests);
+                wars.add(warTag);
+            }
+            tag.put("Wars", wars);
+        }
+        return tag;
+    }
+
+    private static long[] uuidArray(Set<UUID> ids) {
+        long[] out = new long[ids.size() * 2];
+        int i = 0;
+        for (UUID id : ids) {
+            out[i++] = id.getMostSignificantBits();
+            out[i++] = id.getLeastSignificantBits();
+        }
+        return out;
+    }
+
+    private static CompoundTag encodePlayers(Map<UUID, TownPlayerData> players) {
+        long[] ids = new long[players.size() * 2];
+        long[] townIds = new long[players.size() * 2];
+        byte[] ranks = new byte[players.size()];
+
+        int i = 0;
+        for (Map.Entry<UUID, TownPlayerData> entry : players.entrySet()) {
+            TownPlayerData record = entry.getValue();
+            ids[i * 2] = entry.getKey().getMostSignificantBits();
+            ids[i * 2 + 1] = entry.getKey().getLeastSignificantBits();
+            if (record.hasTown()) {
+                townIds[i * 2] = record.getTownId().getMostSignificantBits();
+                townIds[i * 2 + 1] = record.getTownId().getLeastSignificantBits();
+            }
+            ranks[i] = (byte) (record.getRank() == null ? TownRank.CITIZEN : record.getRank()).ordinal();
+            record.clearDirty();
+            i++;
+        }
+
+        CompoundTag tag = new CompoundTag();
+        tag.putLongArray("Ids", ids);
+        tag.putLongArray("Towns", townIds);
+        tag.putByteArray("Ranks", ranks);
+        return tag;
+    }
+
+    private CompoundTag write(CompoundTag root) {
+        encodeChanges(TownManager.getTownMap(), TownPlayerManager.getPlayerMap());
+
+        ListTag townList = new ListTag();
+        townList.addAll(townCache.values());
+
+        root.putInt("Version", FORMAT_VERSION);
+        root.put("Towns", townList);
+        root.put("Players", playerTag);
+        return root;
+    }
+
+    // ========================================================================
+    // MIGRATION
+    // ========================================================================
+
+    @Override
+    public void retire() throws IOException {
+        retired = true;
+        if (Files.exists(file)) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ========================================================================
+    // SAVED DATA
+    // ========================================================================
+
+    static class Data extends SavedData {
+
+        private WorldSavedDataBackend backend;
+        private CompoundTag loaded; // handed to the backend once, then dropped
+
+        private Data() {
+        }
+
+        private static Data load(CompoundTag tag, HolderLookup.Provider registries) {
+            Data data = new Data();
+            data.loaded = tag;
+            return data;
+        }
+
+        @Override
+        public boolean isDirty() {
+            // Also catch edits made since the last autosave, so every world save is complete
+            if (backend == null || backend.retired) return false;
+            if (!super.isDirty() && backend.encodeChanges(TownManager.getTownMap(), TownPlayerManager.getPlayerMap())) {
+                setDirty();
+            }
+            return super.isDirty();
+        }
+
+        @Override
+        public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
+            return backend.write(tag);
+        }
+    }
+}